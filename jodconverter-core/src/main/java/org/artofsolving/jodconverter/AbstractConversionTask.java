@@ -18,12 +18,17 @@ import static org.artofsolving.jodconverter.office.OfficeUtils.toUnoProperties;
 import static org.artofsolving.jodconverter.office.OfficeUtils.toUrl;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.Map;
 
+import org.artofsolving.jodconverter.document.DocumentFormat;
 import org.artofsolving.jodconverter.office.OfficeContext;
 import org.artofsolving.jodconverter.office.OfficeException;
 import org.artofsolving.jodconverter.office.OfficeTask;
+import org.artofsolving.jodconverter.office.TaskPriority;
+import org.artofsolving.jodconverter.office.UnoProperties;
 
+import com.sun.star.beans.PropertyValue;
 import com.sun.star.frame.XComponentLoader;
 import com.sun.star.frame.XStorable;
 import com.sun.star.io.IOException;
@@ -31,6 +36,7 @@ import com.sun.star.lang.IllegalArgumentException;
 import com.sun.star.lang.XComponent;
 import com.sun.star.task.ErrorCodeIOException;
 import com.sun.star.util.CloseVetoException;
+import com.sun.star.util.XRefreshable;
 import com.sun.star.util.XCloseable;
 
 public abstract class AbstractConversionTask implements OfficeTask {
@@ -38,21 +44,139 @@ public abstract class AbstractConversionTask implements OfficeTask {
     private final File inputFile;
     private final File outputFile;
 
+    private TaskPriority priority = TaskPriority.NORMAL;
+    private String tenant = DEFAULT_TENANT;
+    private long deadline = NO_DEADLINE;
+
     public AbstractConversionTask(File inputFile, File outputFile) {
         this.inputFile = inputFile;
         this.outputFile = outputFile;
     }
 
+    public File getInputFile() {
+        return inputFile;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * Override, together with {@link #getOutputUrl()}, to convert from or to
+     * something other than the input and output files, e.g. a
+     * <code>private:stream</code> passed in the load properties.
+     * 
+     * @return the URL the document is loaded from; the input file's by default
+     */
+    protected String getInputUrl() {
+        return toUrl(inputFile);
+    }
+
+    /**
+     * @return the URL the document is stored to; the output file's by default
+     */
+    protected String getOutputUrl() {
+        return toUrl(outputFile);
+    }
+
+    /**
+     * @return the name the input document is referred to by in error messages
+     */
+    protected String getInputName() {
+        return inputFile.getName();
+    }
+
+    /**
+     * @return the name the output document is referred to by in error messages
+     */
+    protected String getOutputName() {
+        return outputFile.getName();
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(TaskPriority priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    @Override
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @param deadline
+     *            as returned by {@link System#currentTimeMillis()}, or
+     *            {@link #NO_DEADLINE}
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
     protected abstract Map<String,?> getLoadProperties(File inputFile);
 
+    /**
+     * @param defaultLoadProperties
+     *            may be <code>null</code>
+     * @param inputFormat
+     *            may be <code>null</code>
+     * @return a new map of the default load properties overridden by those of
+     *         the input format
+     */
+    protected static Map<String,Object> mergeLoadProperties(Map<String,?> defaultLoadProperties,
+            DocumentFormat inputFormat) {
+        Map<String,Object> loadProperties = new HashMap<String,Object>();
+        if (defaultLoadProperties != null) {
+            loadProperties.putAll(defaultLoadProperties);
+        }
+        if (inputFormat != null && inputFormat.getLoadProperties() != null) {
+            loadProperties.putAll(inputFormat.getLoadProperties());
+        }
+        return loadProperties;
+    }
+
     protected abstract Map<String,?> getStoreProperties(File outputFile, XComponent document);
 
+    /**
+     * Override to pass precompiled {@link UnoProperties} rather than have
+     * {@link #getLoadProperties(File)} converted for every task.
+     */
+    protected PropertyValue[] getUnoLoadProperties(File inputFile) {
+        return toUnoProperties(getLoadProperties(inputFile));
+    }
+
+    /**
+     * Like {@link #getUnoLoadProperties(File)}, for
+     * {@link #getStoreProperties(File, XComponent)}.
+     * 
+     * @return <code>null</code> if the conversion is unsupported
+     */
+    protected PropertyValue[] getUnoStoreProperties(File outputFile, XComponent document) {
+        Map<String,?> storeProperties = getStoreProperties(outputFile, document);
+        return storeProperties != null ? toUnoProperties(storeProperties) : null;
+    }
+
     public void execute(OfficeContext context) throws OfficeException {
         XComponent document = null;
         try {
+            checkCancelled();
             document = loadDocument(context, inputFile);
             modifyDocument(document);
-            storeDocument(document, outputFile);
+            // e.g. superseded by a hedged attempt; don't write output nobody wants
+            checkCancelled();
+            storeDocument(document);
         } catch (OfficeException officeException) {
             throw officeException;
         } catch (Exception exception) {
@@ -73,24 +197,29 @@ public abstract class AbstractConversionTask implements OfficeTask {
         }
     }
 
+    protected final void checkCancelled() throws OfficeException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new OfficeException("conversion cancelled");
+        }
+    }
+
     private XComponent loadDocument(OfficeContext context, File inputFile) throws OfficeException {
-        if (!inputFile.exists()) {
+        if (inputFile != null && !inputFile.exists()) {
             throw new OfficeException("input document not found");
         }
         XComponentLoader loader = cast(XComponentLoader.class, context.getService(SERVICE_DESKTOP));
-        Map<String,?> loadProperties = getLoadProperties(inputFile);
         XComponent document = null;
         try {
-            document = loader.loadComponentFromURL(toUrl(inputFile), "_blank", 8, toUnoProperties(loadProperties));
+            document = loader.loadComponentFromURL(getInputUrl(), "_blank", 8, getUnoLoadProperties(inputFile));
         } catch (IllegalArgumentException illegalArgumentException) {
-            throw new OfficeException("could not load document: " + inputFile.getName(), illegalArgumentException);
+            throw new OfficeException("could not load document: " + getInputName(), illegalArgumentException);
         } catch (ErrorCodeIOException errorCodeIOException) {
-            throw new OfficeException("could not load document: "  + inputFile.getName() + "; errorCode: " + errorCodeIOException.ErrCode, errorCodeIOException);
+            throw new OfficeException("could not load document: "  + getInputName() + "; errorCode: " + errorCodeIOException.ErrCode, errorCodeIOException);
         } catch (IOException ioException) {
-            throw new OfficeException("could not load document: "  + inputFile.getName(), ioException);
+            throw new OfficeException("could not load document: "  + getInputName(), ioException);
         }
         if (document == null) {
-            throw new OfficeException("could not load document: "  + inputFile.getName());
+            throw new OfficeException("could not load document: "  + getInputName());
         }
         return document;
     }
@@ -108,18 +237,47 @@ public abstract class AbstractConversionTask implements OfficeTask {
     	// noop
     }
 
-    private void storeDocument(XComponent document, File outputFile) throws OfficeException {
-        Map<String,?> storeProperties = getStoreProperties(outputFile, document);
-        //System.out.println(" >>>> " + storeProperties);
+    /**
+     * Updates the fields, indexes etc. of the document, if it has any, so that
+     * they are stored up to date.
+     * 
+     * @param document
+     */
+    protected final void refreshDocument(XComponent document) {
+        XRefreshable refreshable = cast(XRefreshable.class, document);
+        if (refreshable != null) {
+            refreshable.refresh();
+        }
+    }
+
+    /**
+     * Override to store the document somewhere else than the output file, or
+     * more than once.
+     * 
+     * @param document
+     * @throws OfficeException
+     */
+    protected void storeDocument(XComponent document) throws OfficeException {
+        storeDocument(document, getOutputUrl(), getOutputName(), getUnoStoreProperties(outputFile, document));
+    }
+
+    protected final void storeDocument(XComponent document, String outputUrl, String outputName,
+            Map<String,?> storeProperties) throws OfficeException {
+        storeDocument(document, outputUrl, outputName, storeProperties != null ? toUnoProperties(storeProperties)
+                : null);
+    }
+
+    protected final void storeDocument(XComponent document, String outputUrl, String outputName,
+            PropertyValue[] storeProperties) throws OfficeException {
         if (storeProperties == null) {
             throw new OfficeException("unsupported conversion");
         }
         try {
-            cast(XStorable.class, document).storeToURL(toUrl(outputFile), toUnoProperties(storeProperties));
+            cast(XStorable.class, document).storeToURL(outputUrl, storeProperties);
         } catch (ErrorCodeIOException errorCodeIOException) {
-            throw new OfficeException("could not store document: " + outputFile.getName() + "; errorCode: " + errorCodeIOException.ErrCode, errorCodeIOException);
+            throw new OfficeException("could not store document: " + outputName + "; errorCode: " + errorCodeIOException.ErrCode, errorCodeIOException);
         } catch (IOException ioException) {
-            throw new OfficeException("could not store document: " + outputFile.getName(), ioException);
+            throw new OfficeException("could not store document: " + outputName, ioException);
         }
     }
 
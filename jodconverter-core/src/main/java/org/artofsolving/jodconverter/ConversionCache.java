@@ -0,0 +1,226 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.util.DigestUtils;
+
+/**
+ * An on-disk cache of conversion results, keyed by a hash of the input
+ * document's content, the output format and the load properties, so that a
+ * repeated conversion is served by copying a file instead of running office.
+ * <p>
+ * The cache directory holds one file per result, named after its key. New
+ * results are written to a temporary file and renamed into place, so that a
+ * result is never seen half written; once the total size exceeds the budget,
+ * the least recently used results are deleted. The index is rebuilt from the
+ * directory when the cache is created, using file modification times, which
+ * are refreshed on every hit, as the recency of use.
+ * <p>
+ * Thread safe; one instance can be shared by several converters, but not by
+ * several JVMs.
+ */
+public class ConversionCache {
+
+    private static final String TEMP_FILE_PREFIX = ".tmp-";
+
+    private final File directory;
+    private final long maxSize;
+    // key -> size in bytes, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long size = 0L;
+    private long hitCount = 0L;
+    private long missCount = 0L;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    /**
+     * @param directory
+     *            created if it does not exist
+     * @param maxSize
+     *            in bytes
+     * @throws IOException
+     */
+    public ConversionCache(File directory, long maxSize) throws IOException {
+        if (maxSize <= 0L) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        FileUtils.forceMkdir(directory);
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            public int compare(File first, File second) {
+                return Long.compare(first.lastModified(), second.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (file.getName().startsWith(TEMP_FILE_PREFIX)) {
+                // left over from a crash while being published
+                FileUtils.deleteQuietly(file);
+            } else if (file.isFile()) {
+                entries.put(file.getName(), Long.valueOf(file.length()));
+                size += file.length();
+            }
+        }
+        evict();
+        logger.info(String.format("conversion cache '%s' holds %d results (%d bytes)", directory, entries.size(),
+                size));
+    }
+
+    /**
+     * @param inputFingerprint
+     *            content hash of the input document
+     * @param outputFormat
+     * @param loadProperties
+     *            the effective load properties of the conversion
+     * @return the cache key of the conversion
+     */
+    public static String createKey(String inputFingerprint, DocumentFormat outputFormat,
+            Map<String,?> loadProperties) {
+        StringBuilder key = new StringBuilder(inputFingerprint);
+        key.append('\n').append(outputFormat.getExtension());
+        key.append('\n').append(canonicalize(loadProperties));
+        key.append('\n').append(canonicalize(outputFormat.getStorePropertiesByFamily()));
+        return DigestUtils.sha256Hex(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the properties in key order, with nested property maps in key
+     *         order too, so that equal properties give equal keys
+     */
+    private static Object canonicalize(Object value) {
+        if (!(value instanceof Map)) {
+            return value;
+        }
+        Map<Object, Object> sorted = new TreeMap<Object, Object>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            sorted.put(String.valueOf(entry.getKey()), canonicalize(entry.getValue()));
+        }
+        return sorted;
+    }
+
+    /**
+     * Copies the cached result, if any, to the output file.
+     * 
+     * @return whether the result was cached
+     * @throws IOException
+     */
+    public boolean get(String key, File outputFile) throws IOException {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                missCount++;
+                return false;
+            }
+        }
+        File cachedFile = new File(directory, key);
+        try {
+            FileUtils.copyFile(cachedFile, outputFile);
+        } catch (FileNotFoundException fileNotFoundException) {
+            // evicted meanwhile
+            synchronized (this) {
+                Long length = entries.remove(key);
+                if (length != null) {
+                    size -= length.longValue();
+                }
+                missCount++;
+            }
+            return false;
+        }
+        cachedFile.setLastModified(System.currentTimeMillis());
+        synchronized (this) {
+            hitCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Adds a result, replacing any previous one with the same key.
+     * 
+     * @throws IOException
+     */
+    public void put(String key, File resultFile) throws IOException {
+        long length = resultFile.length();
+        if (length > maxSize) {
+            return;
+        }
+        File tempFile = new File(directory, TEMP_FILE_PREFIX + UUID.randomUUID());
+        try {
+            FileUtils.copyFile(resultFile, tempFile);
+            Files.move(tempFile.toPath(), new File(directory, key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
+        }
+        synchronized (this) {
+            Long previousLength = entries.put(key, Long.valueOf(length));
+            size += length - (previousLength != null ? previousLength.longValue() : 0L);
+            evict();
+        }
+    }
+
+    /**
+     * Must be called while synchronized.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            size -= entry.getValue().longValue();
+            FileUtils.deleteQuietly(new File(directory, entry.getKey()));
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the total size, in bytes, of the cached results
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+}
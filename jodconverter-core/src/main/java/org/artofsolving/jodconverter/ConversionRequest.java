@@ -0,0 +1,64 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.io.File;
+
+import org.artofsolving.jodconverter.document.DocumentFormat;
+
+/**
+ * One conversion of a batch passed to
+ * {@link OfficeDocumentConverter#convertAll(java.util.Collection)}.
+ */
+public class ConversionRequest {
+
+    private final File inputFile;
+    private final File outputFile;
+    private final DocumentFormat outputFormat;
+
+    /**
+     * @param inputFile
+     * @param outputFile
+     *            whose format is deduced from its extension
+     */
+    public ConversionRequest(File inputFile, File outputFile) {
+        this(inputFile, outputFile, null);
+    }
+
+    public ConversionRequest(File inputFile, File outputFile, DocumentFormat outputFormat) {
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.outputFormat = outputFormat;
+    }
+
+    public File getInputFile() {
+        return inputFile;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * @return <code>null</code> if deduced from the output file's extension
+     */
+    public DocumentFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    @Override
+    public String toString() {
+        return inputFile + " -> " + outputFile;
+    }
+
+}
@@ -0,0 +1,61 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import org.artofsolving.jodconverter.office.OfficeException;
+
+/**
+ * The outcome of one {@link ConversionRequest} of a batch.
+ */
+public class ConversionResult {
+
+    private final ConversionRequest request;
+    private final long elapsedTime;
+    private final OfficeException failure;
+
+    public ConversionResult(ConversionRequest request, long elapsedTime, OfficeException failure) {
+        this.request = request;
+        this.elapsedTime = elapsedTime;
+        this.failure = failure;
+    }
+
+    public ConversionRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return in milliseconds, from the time the conversion was handed to the
+     *         {@link org.artofsolving.jodconverter.office.OfficeManager},
+     *         including any time spent queueing
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+
+    /**
+     * @return why the conversion failed, or <code>null</code> if it succeeded
+     */
+    public OfficeException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return request + (failure == null ? " in " + elapsedTime + " ms" : " failed: " + failure.getMessage());
+    }
+
+}
@@ -0,0 +1,59 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.io.File;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.document.DocumentFormat;
+
+/**
+ * One of the outputs of a {@link MultiConversionTask}.
+ */
+public class ConversionTarget {
+
+    private final File outputFile;
+    private final DocumentFormat outputFormat;
+    private final Map<String,?> storeProperties;
+
+    public ConversionTarget(File outputFile, DocumentFormat outputFormat) {
+        this(outputFile, outputFormat, null);
+    }
+
+    /**
+     * @param outputFile
+     * @param outputFormat
+     * @param storeProperties
+     *            added to, or overriding, those of the output format, e.g. a
+     *            <code>FilterData</code> specific to this output; may be
+     *            <code>null</code>
+     */
+    public ConversionTarget(File outputFile, DocumentFormat outputFormat, Map<String,?> storeProperties) {
+        this.outputFile = outputFile;
+        this.outputFormat = outputFormat;
+        this.storeProperties = storeProperties;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public DocumentFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public Map<String,?> getStoreProperties() {
+        return storeProperties;
+    }
+
+}
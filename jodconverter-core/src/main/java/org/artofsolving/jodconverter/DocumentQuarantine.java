@@ -0,0 +1,151 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.artofsolving.jodconverter.office.TaskAbortedException;
+import org.artofsolving.jodconverter.office.TaskExpiredException;
+
+/**
+ * Remembers input documents, by content hash, whose conversion crashed or
+ * hung an office process, so that an {@link OfficeDocumentConverter} can
+ * refuse them straight away rather than sacrifice another process to them.
+ * <p>
+ * A document is quarantined once its conversions ended in a
+ * {@link TaskAbortedException} <code>maxAborts</code> times without a
+ * successful conversion in between (a {@link TaskExpiredException}, which
+ * only ran out of a timeout shortened by its deadline, does not count), and released again <code>ttl</code>
+ * milliseconds later. Aborts older than <code>ttl</code> are forgotten, so
+ * that a document that merely happened to run on a process that crashed for
+ * other reasons is not quarantined for it.
+ * <p>
+ * Thread safe; one instance can be shared by several converters.
+ */
+public class DocumentQuarantine {
+
+    public static final int DEFAULT_MAX_ABORTS = 2;
+    public static final long DEFAULT_TTL = 3600000L; // 1 hour
+
+    private static class Entry {
+        private int abortCount;
+        private long lastAbortTime;
+        private long releaseTime;
+    }
+
+    private final int maxAborts;
+    private final long ttl;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    public DocumentQuarantine() {
+        this(DEFAULT_MAX_ABORTS, DEFAULT_TTL);
+    }
+
+    public DocumentQuarantine(int maxAborts, long ttl) {
+        if (maxAborts < 1) {
+            throw new IllegalArgumentException("maxAborts must be at least 1");
+        }
+        if (ttl <= 0L) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.maxAborts = maxAborts;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @param fingerprint
+     *            content hash of the input document
+     * @return whether conversions of the document should be refused
+     */
+    public boolean isQuarantined(String fingerprint) {
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            return entry.releaseTime > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @param fingerprint
+     *            content hash of a document whose conversion was aborted
+     * @return whether the document is now quarantined
+     */
+    public boolean recordAbort(String fingerprint) {
+        long now = System.currentTimeMillis();
+        Entry newEntry = new Entry();
+        Entry entry = entries.putIfAbsent(fingerprint, newEntry);
+        if (entry == null) {
+            entry = newEntry;
+        }
+        synchronized (entry) {
+            if (now - entry.lastAbortTime > ttl) {
+                entry.abortCount = 0;
+            }
+            entry.abortCount++;
+            entry.lastAbortTime = now;
+            if (entry.abortCount >= maxAborts) {
+                entry.releaseTime = now + ttl;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Forgets any aborts recorded for the document, which has just been
+     * converted successfully.
+     * 
+     * @param fingerprint
+     */
+    public void recordSuccess(String fingerprint) {
+        entries.remove(fingerprint);
+    }
+
+    /**
+     * Releases a quarantined document ahead of its time, e.g. after the
+     * office installation has been upgraded.
+     * 
+     * @param fingerprint
+     */
+    public void release(String fingerprint) {
+        entries.remove(fingerprint);
+    }
+
+    /**
+     * @return the content hashes of the currently quarantined documents,
+     *         with the time (as returned by
+     *         {@link System#currentTimeMillis()}) each will be released at
+     */
+    public Map<String, Long> getQuarantinedDocuments() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> quarantined = new TreeMap<String, Long>();
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            synchronized (entry) {
+                if (entry.releaseTime > now) {
+                    quarantined.put(mapEntry.getKey(), entry.releaseTime);
+                } else if (now - entry.lastAbortTime > ttl) {
+                    entries.remove(mapEntry.getKey(), entry);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(quarantined);
+    }
+
+}
@@ -0,0 +1,148 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.artofsolving.jodconverter.office.OfficeUtils.toUrl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FilenameUtils;
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.office.OfficeException;
+
+import com.sun.star.lang.XComponent;
+
+/**
+ * Loads a document once and stores it to several {@link ConversionTarget}s,
+ * e.g. a PDF, an HTML rendition and a plain text extract, in a single task:
+ * loading and laying out the document is usually what takes longest.
+ * <p>
+ * Targets are stored in order; if one fails, the task fails and the targets
+ * after it are not stored, but those before it have been written.
+ */
+public class MultiConversionTask extends AbstractConversionTask {
+
+    private final List<ConversionTarget> targets;
+
+    private Map<String,?> defaultLoadProperties;
+    private DocumentFormat inputFormat;
+
+    public MultiConversionTask(File inputFile, List<ConversionTarget> targets) {
+        super(inputFile, null);
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("no conversion targets");
+        }
+        for (ConversionTarget target : targets) {
+            if (target.getOutputFormat() == null) {
+                throw new IllegalArgumentException("unknown output format: " + target.getOutputFile().getName());
+            }
+        }
+        this.targets = new ArrayList<ConversionTarget>(targets);
+    }
+
+    public List<ConversionTarget> getTargets() {
+        return targets;
+    }
+
+    public void setDefaultLoadProperties(Map<String, ?> defaultLoadProperties) {
+        this.defaultLoadProperties = defaultLoadProperties;
+    }
+
+    public void setInputFormat(DocumentFormat inputFormat) {
+        this.inputFormat = inputFormat;
+    }
+
+    @Override
+    protected String getOutputName() {
+        return targets.size() + " targets";
+    }
+
+    /**
+     * Like for a {@link StandardConversionTask}, with the output extensions
+     * joined by <code>+</code>.
+     */
+    @Override
+    public String getLatencyClass() {
+        StringBuilder outputExtensions = new StringBuilder();
+        for (ConversionTarget target : targets) {
+            if (outputExtensions.length() > 0) {
+                outputExtensions.append('+');
+            }
+            outputExtensions.append(target.getOutputFormat().getExtension());
+        }
+        File inputFile = getInputFile();
+        return StandardConversionTask.getLatencyClass(FilenameUtils.getExtension(inputFile.getName()).toLowerCase(),
+                outputExtensions.toString(), inputFile.length());
+    }
+
+    @Override
+    public String getAffinityKey() {
+        if (inputFormat != null && inputFormat.getInputFamily() != null) {
+            return inputFormat.getInputFamily().name();
+        }
+        return null;
+    }
+
+    @Override
+    protected void modifyDocument(XComponent document) throws OfficeException {
+        refreshDocument(document);
+    }
+
+    @Override
+    protected void storeDocument(XComponent document) throws OfficeException {
+        for (int i = 0; i < targets.size(); i++) {
+            if (i > 0) {
+                checkCancelled();
+            }
+            ConversionTarget target = targets.get(i);
+            File outputFile = target.getOutputFile();
+            storeDocument(document, toUrl(outputFile), outputFile.getName(),
+                    getStoreProperties(target, OfficeDocumentUtils.getDocumentFamily(document)));
+        }
+    }
+
+    @Override
+    protected Map<String,?> getLoadProperties(File inputFile) {
+        return mergeLoadProperties(defaultLoadProperties, inputFormat);
+    }
+
+    @Override
+    protected Map<String,?> getStoreProperties(File outputFile, XComponent document) {
+        for (ConversionTarget target : targets) {
+            if (target.getOutputFile().equals(outputFile)) {
+                return getStoreProperties(target, OfficeDocumentUtils.getDocumentFamily(document));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the store properties of the target's format, overridden by
+     *         those of the target
+     */
+    Map<String,?> getStoreProperties(ConversionTarget target, DocumentFamily family) {
+        Map<String,?> formatProperties = target.getOutputFormat().getStoreProperties(family);
+        if (formatProperties == null || target.getStoreProperties() == null) {
+            return formatProperties;
+        }
+        Map<String,Object> storeProperties = new HashMap<String,Object>(formatProperties);
+        storeProperties.putAll(target.getStoreProperties());
+        return storeProperties;
+    }
+
+}
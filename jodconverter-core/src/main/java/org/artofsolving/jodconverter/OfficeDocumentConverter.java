@@ -13,24 +13,86 @@
 package org.artofsolving.jodconverter;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
 import org.artofsolving.jodconverter.document.DocumentFormat;
 import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
 import org.artofsolving.jodconverter.office.OfficeException;
 import org.artofsolving.jodconverter.office.OfficeManager;
+import org.artofsolving.jodconverter.office.OfficeTask;
+import org.artofsolving.jodconverter.office.TaskAbortedException;
+import org.artofsolving.jodconverter.office.TaskExpiredException;
+import org.artofsolving.jodconverter.office.TaskPriority;
+import org.artofsolving.jodconverter.util.DigestUtils;
 
 import com.sun.star.document.UpdateDocMode;
 
 public class OfficeDocumentConverter {
 
+    public static final int DEFAULT_BATCH_WINDOW = 32;
+
+    private static class Completion {
+        private final int index;
+        private final ConversionResult result;
+
+        public Completion(int index, ConversionResult result) {
+            this.index = index;
+            this.result = result;
+        }
+    }
+
+    /**
+     * A conversion attached to an identical one already in progress.
+     */
+    private static class Follower {
+        private final File outputFile;
+        private final CompletableFuture<Void> result;
+
+        public Follower(File outputFile, CompletableFuture<Void> result) {
+            this.outputFile = outputFile;
+            this.result = result;
+        }
+    }
+
     private final OfficeManager officeManager;
     private final DocumentFormatRegistry formatRegistry;
 
     private Map<String,?> defaultLoadProperties = createDefaultLoadProperties();
+    private PrecompiledProperties precompiledProperties;
+    private TaskPriority priority = TaskPriority.NORMAL;
+    private String tenant = OfficeTask.DEFAULT_TENANT;
+    private DocumentQuarantine documentQuarantine = null;
+    private ConversionCache conversionCache = null;
+    private int batchWindow = DEFAULT_BATCH_WINDOW;
+    private boolean coalesceDuplicates = false;
+
+    // conversion key -> followers of the conversion in progress
+    private final Map<String,List<Follower>> inFlightConversions = new HashMap<String,List<Follower>>();
+    private final AtomicLong coalescedConversionCount = new AtomicLong();
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
 
     public OfficeDocumentConverter(OfficeManager officeManager) {
         this(officeManager, new DefaultDocumentFormatRegistry());
@@ -39,9 +101,10 @@ public class OfficeDocumentConverter {
     public OfficeDocumentConverter(OfficeManager officeManager, DocumentFormatRegistry formatRegistry) {
         this.officeManager = officeManager;
         this.formatRegistry = formatRegistry;
+        this.precompiledProperties = new PrecompiledProperties(defaultLoadProperties, formatRegistry);
     }
 
-    private Map<String,Object> createDefaultLoadProperties() {
+    static Map<String,Object> createDefaultLoadProperties() {
         Map<String,Object> loadProperties = new HashMap<String,Object>();
         loadProperties.put("Hidden", Boolean.TRUE);
         loadProperties.put("ReadOnly", Boolean.TRUE);
@@ -52,8 +115,108 @@ public class OfficeDocumentConverter {
         return loadProperties;
     }
 
+    /**
+     * @param defaultLoadProperties
+     *            overridden by the load properties of the input format;
+     *            changes made to the map afterwards are not guaranteed to be
+     *            seen, so call this again instead
+     */
     public void setDefaultLoadProperties(Map<String, ?> defaultLoadProperties) {
         this.defaultLoadProperties = defaultLoadProperties;
+        this.precompiledProperties = new PrecompiledProperties(defaultLoadProperties, formatRegistry);
+    }
+
+    /**
+     * Sets the {@link TaskPriority} of conversions started by this converter,
+     * e.g. {@link TaskPriority#BATCH} for a converter used by a background job
+     * that shares its {@link OfficeManager} with interactive requests.
+     * 
+     * @param priority
+     */
+    public void setPriority(TaskPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Sets the tenant that conversions started by this converter are
+     * accounted to when the {@link OfficeManager} is shared between several
+     * customers or applications.
+     * 
+     * @param tenant
+     */
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    /**
+     * Makes this converter refuse input documents that repeatedly crashed or
+     * hung an office process; disabled by default, as it requires hashing
+     * every input document.
+     * 
+     * @param documentQuarantine
+     *            <code>null</code> to disable
+     */
+    public void setDocumentQuarantine(DocumentQuarantine documentQuarantine) {
+        this.documentQuarantine = documentQuarantine;
+    }
+
+    public DocumentQuarantine getDocumentQuarantine() {
+        return documentQuarantine;
+    }
+
+    /**
+     * Makes this converter serve repeated file-to-file conversions from the
+     * cache instead of office; disabled by default, as it requires hashing
+     * every input document.
+     * 
+     * @param conversionCache
+     *            <code>null</code> to disable
+     */
+    public void setConversionCache(ConversionCache conversionCache) {
+        this.conversionCache = conversionCache;
+    }
+
+    public ConversionCache getConversionCache() {
+        return conversionCache;
+    }
+
+    /**
+     * Makes a file-to-file conversion that is identical to one already in
+     * progress, i.e. has the same input content, output format and load
+     * properties, wait for that one and receive a copy of its output instead
+     * of occupying another office process; disabled by default, as it
+     * requires hashing every input document.
+     * <p>
+     * A coalesced conversion shares the outcome of the one it is attached
+     * to, including its deadline.
+     * 
+     * @param coalesceDuplicates
+     */
+    public void setCoalesceDuplicates(boolean coalesceDuplicates) {
+        this.coalesceDuplicates = coalesceDuplicates;
+    }
+
+    /**
+     * @return how many conversions were attached to an identical one in
+     *         progress rather than executed
+     */
+    public long getCoalescedConversionCount() {
+        return coalescedConversionCount.get();
+    }
+
+    /**
+     * Sets how many conversions of a {@link #convertAll(Collection)} batch
+     * are handed to the {@link OfficeManager} at a time, so that a large
+     * batch keeps every office process busy without filling a bounded task
+     * queue. Defaults to {@value #DEFAULT_BATCH_WINDOW}.
+     * 
+     * @param batchWindow
+     */
+    public void setBatchWindow(int batchWindow) {
+        if (batchWindow < 1) {
+            throw new IllegalArgumentException("batchWindow must be at least 1");
+        }
+        this.batchWindow = batchWindow;
     }
 
     public DocumentFormatRegistry getFormatRegistry() {
@@ -61,18 +224,402 @@ public class OfficeDocumentConverter {
     }
 
     public void convert(File inputFile, File outputFile) throws OfficeException {
-        String outputExtension = FilenameUtils.getExtension(outputFile.getName());
-        DocumentFormat outputFormat = formatRegistry.getFormatByExtension(outputExtension);
-        convert(inputFile, outputFile, outputFormat);
+        convert(inputFile, outputFile, getOutputFormat(outputFile));
     }
 
     public void convert(File inputFile, File outputFile, DocumentFormat outputFormat) throws OfficeException {
+        convert(inputFile, outputFile, outputFormat, OfficeTask.NO_DEADLINE);
+    }
+
+    /**
+     * @param inputFile
+     * @param outputFile
+     * @param outputFormat
+     * @param deadline
+     *            as returned by {@link System#currentTimeMillis()}; the
+     *            conversion fails rather than starts after it, and is given
+     *            no more time than is left until it
+     * @throws OfficeException
+     */
+    public void convert(File inputFile, File outputFile, DocumentFormat outputFormat, long deadline)
+            throws OfficeException {
+        CompletableFuture<Void> conversion = convertAsync(inputFile, outputFile, outputFormat, deadline);
+        try {
+            conversion.get();
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof OfficeException) {
+                throw (OfficeException) executionException.getCause();
+            }
+            throw new OfficeException("conversion failed", executionException.getCause());
+        } catch (InterruptedException interruptedException) {
+            conversion.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OfficeException("interrupted", interruptedException);
+        }
+    }
+
+    /**
+     * Converts the input file to several formats at once, loading it only
+     * once; see {@link MultiConversionTask}.
+     * 
+     * @param inputFile
+     * @param outputFiles
+     *            whose formats are deduced from their extensions
+     * @throws IllegalArgumentException
+     *             if an extension is not that of a known format
+     * @throws OfficeException
+     */
+    public void convert(File inputFile, File... outputFiles) throws OfficeException {
+        List<ConversionTarget> targets = new ArrayList<ConversionTarget>(outputFiles.length);
+        for (File outputFile : outputFiles) {
+            targets.add(new ConversionTarget(outputFile, getOutputFormat(outputFile)));
+        }
+        convert(inputFile, targets);
+    }
+
+    public void convert(File inputFile, List<ConversionTarget> targets) throws OfficeException {
+        String inputExtension = FilenameUtils.getExtension(inputFile.getName());
+        MultiConversionTask conversionTask = new MultiConversionTask(inputFile, targets);
+        conversionTask.setDefaultLoadProperties(defaultLoadProperties);
+        conversionTask.setInputFormat(formatRegistry.getFormatByExtension(inputExtension));
+        conversionTask.setPriority(priority);
+        conversionTask.setTenant(tenant);
+        execute(conversionTask, checkQuarantine(inputFile));
+    }
+
+    /**
+     * Converts a document received as a stream, e.g. the body of an HTTP
+     * request, to another stream without writing either to disk: the input
+     * is read into memory by the calling thread before the conversion is
+     * queued, and office writes the output straight to
+     * <code>outputStream</code>. Neither stream is closed.
+     * 
+     * @param inputStream
+     * @param inputFormat
+     * @param outputStream
+     * @param outputFormat
+     * @throws OfficeException
+     *             also if <code>inputStream</code> cannot be read
+     */
+    public void convert(InputStream inputStream, DocumentFormat inputFormat, OutputStream outputStream,
+            DocumentFormat outputFormat) throws OfficeException {
+        byte[] input;
+        try {
+            input = IOUtils.toByteArray(inputStream);
+        } catch (IOException ioException) {
+            throw new OfficeException("could not read input stream", ioException);
+        }
+        StreamConversionTask conversionTask = new StreamConversionTask(input, inputFormat, outputStream,
+                outputFormat);
+        conversionTask.setDefaultLoadProperties(defaultLoadProperties);
+        conversionTask.setPrecompiledProperties(precompiledProperties);
+        conversionTask.setPriority(priority);
+        conversionTask.setTenant(tenant);
+        String fingerprint = null;
+        if (documentQuarantine != null) {
+            fingerprint = DigestUtils.sha256Hex(input);
+            checkQuarantine(fingerprint, "input stream");
+        }
+        execute(conversionTask, fingerprint);
+    }
+
+    private void execute(OfficeTask conversionTask, String fingerprint) throws OfficeException {
+        try {
+            officeManager.execute(conversionTask);
+        } catch (OfficeException officeException) {
+            recordOutcome(fingerprint, officeException);
+            throw officeException;
+        }
+        recordOutcome(fingerprint, null);
+    }
+
+    /**
+     * Converts a batch of documents, spreading them over all office processes
+     * of the {@link OfficeManager}. A failed conversion does not stop the
+     * others; its {@link ConversionResult} holds the failure.
+     * 
+     * @param requests
+     * @return one result per request, in the order of the requests
+     * @throws OfficeException
+     *             only if interrupted, in which case the outstanding
+     *             conversions are cancelled
+     */
+    public List<ConversionResult> convertAll(Collection<ConversionRequest> requests) throws OfficeException {
+        return convertAll(requests, null);
+    }
+
+    /**
+     * Like {@link #convertAll(Collection)}, but also passes each result to
+     * <code>listener</code> as soon as its conversion completes, i.e. in order
+     * of completion, on the calling thread.
+     * 
+     * @param requests
+     * @param listener
+     *            may be <code>null</code>
+     * @return one result per request, in the order of the requests
+     * @throws OfficeException
+     */
+    public List<ConversionResult> convertAll(Collection<ConversionRequest> requests,
+            Consumer<ConversionResult> listener) throws OfficeException {
+        ConversionResult[] results = new ConversionResult[requests.size()];
+        List<CompletableFuture<Void>> conversions = new ArrayList<CompletableFuture<Void>>(requests.size());
+        BlockingQueue<Completion> completions = new LinkedBlockingQueue<Completion>();
+        int completed = 0;
+        try {
+            for (ConversionRequest request : requests) {
+                while (conversions.size() - completed >= batchWindow) {
+                    deliver(completions.take(), results, listener);
+                    completed++;
+                }
+                conversions.add(submit(request, conversions.size(), completions));
+                for (Completion completion = completions.poll(); completion != null; completion = completions.poll()) {
+                    deliver(completion, results, listener);
+                    completed++;
+                }
+            }
+            while (completed < conversions.size()) {
+                deliver(completions.take(), results, listener);
+                completed++;
+            }
+        } catch (InterruptedException interruptedException) {
+            for (CompletableFuture<Void> conversion : conversions) {
+                conversion.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new OfficeException("interrupted", interruptedException);
+        }
+        return Arrays.asList(results);
+    }
+
+    private CompletableFuture<Void> submit(final ConversionRequest request, final int index,
+            final BlockingQueue<Completion> completions) {
+        final long startTime = System.nanoTime();
+        CompletableFuture<Void> conversion;
+        try {
+            DocumentFormat outputFormat = request.getOutputFormat() != null ? request.getOutputFormat()
+                    : getOutputFormat(request.getOutputFile());
+            if (outputFormat == null) {
+                throw new OfficeException("unknown output format: " + request.getOutputFile().getName());
+            }
+            conversion = convertAsync(request.getInputFile(), request.getOutputFile(), outputFormat);
+        } catch (RuntimeException runtimeException) {
+            conversion = new CompletableFuture<Void>();
+            conversion.completeExceptionally(runtimeException);
+        }
+        conversion.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                OfficeException failure = null;
+                if (throwable instanceof OfficeException) {
+                    failure = (OfficeException) throwable;
+                } else if (throwable != null) {
+                    failure = new OfficeException("conversion failed", throwable);
+                }
+                completions.add(new Completion(index, new ConversionResult(request, elapsedTime, failure)));
+            }
+        });
+        return conversion;
+    }
+
+    private void deliver(Completion completion, ConversionResult[] results, Consumer<ConversionResult> listener) {
+        results[completion.index] = completion.result;
+        if (listener != null) {
+            listener.accept(completion.result);
+        }
+    }
+
+    /**
+     * Like {@link #convert(File, File)} but returns as soon as the conversion
+     * has been handed to the {@link OfficeManager}.
+     * 
+     * @param inputFile
+     * @param outputFile
+     * @return a future completed once the output file has been written, or
+     *         completed exceptionally with an {@link OfficeException};
+     *         cancelling it drops the conversion if it is still queued and
+     *         aborts it if it is already running
+     */
+    public CompletableFuture<Void> convertAsync(File inputFile, File outputFile) {
+        return convertAsync(inputFile, outputFile, getOutputFormat(outputFile));
+    }
+
+    public CompletableFuture<Void> convertAsync(File inputFile, File outputFile, DocumentFormat outputFormat) {
+        return convertAsync(inputFile, outputFile, outputFormat, OfficeTask.NO_DEADLINE);
+    }
+
+    public CompletableFuture<Void> convertAsync(File inputFile, final File outputFile, DocumentFormat outputFormat,
+            long deadline) {
+        StandardConversionTask conversionTask = createConversionTask(inputFile, outputFile, outputFormat, deadline);
+        final String fingerprint;
+        final String conversionKey;
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        try {
+            fingerprint = checkQuarantine(inputFile);
+            conversionKey = fingerprint != null && outputFormat != null ? ConversionCache.createKey(fingerprint, outputFormat,
+                    conversionTask.getLoadProperties(inputFile)) : null;
+            if (conversionCache != null && conversionKey != null && conversionCache.get(conversionKey, outputFile)) {
+                result.complete(null);
+                return result;
+            }
+        } catch (IOException ioException) {
+            result.completeExceptionally(new OfficeException("could not read from conversion cache", ioException));
+            return result;
+        } catch (OfficeException officeException) {
+            result.completeExceptionally(officeException);
+            return result;
+        }
+        if (fingerprint == null) {
+            return officeManager.executeAsync(conversionTask);
+        }
+        final List<Follower> followers;
+        if (coalesceDuplicates && conversionKey != null) {
+            synchronized (inFlightConversions) {
+                List<Follower> leaderFollowers = inFlightConversions.get(conversionKey);
+                if (leaderFollowers != null) {
+                    leaderFollowers.add(new Follower(outputFile, result));
+                    coalescedConversionCount.incrementAndGet();
+                    return result;
+                }
+                followers = new ArrayList<Follower>();
+                inFlightConversions.put(conversionKey, followers);
+            }
+        } else {
+            followers = null;
+        }
+        final CompletableFuture<Void> execution = officeManager.executeAsync(conversionTask);
+        result.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                if (result.isCancelled() && !hasFollowers(conversionKey, followers)) {
+                    execution.cancel(true);
+                }
+            }
+        });
+        execution.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                recordOutcome(fingerprint, throwable);
+                if (throwable == null && conversionCache != null && conversionKey != null) {
+                    try {
+                        conversionCache.put(conversionKey, outputFile);
+                    } catch (IOException ioException) {
+                        logger.log(Level.WARNING, "could not add conversion result to cache", ioException);
+                    }
+                }
+                if (followers != null) {
+                    completeFollowers(conversionKey, followers, outputFile, throwable);
+                }
+                if (throwable == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stops identical conversions from attaching to this one unless some
+     * already have, in which case it has to go on for them.
+     * 
+     * @return whether the conversion has followers
+     */
+    private boolean hasFollowers(String conversionKey, List<Follower> followers) {
+        if (followers == null) {
+            return false;
+        }
+        synchronized (inFlightConversions) {
+            if (!followers.isEmpty()) {
+                return true;
+            }
+            if (inFlightConversions.get(conversionKey) == followers) {
+                inFlightConversions.remove(conversionKey);
+            }
+            return false;
+        }
+    }
+
+    private void completeFollowers(String conversionKey, List<Follower> followers, File outputFile,
+            Throwable throwable) {
+        synchronized (inFlightConversions) {
+            if (inFlightConversions.get(conversionKey) == followers) {
+                inFlightConversions.remove(conversionKey);
+            }
+        }
+        // no follower can be added anymore
+        for (Follower follower : followers) {
+            if (throwable != null) {
+                follower.result.completeExceptionally(throwable);
+            } else if (!follower.result.isDone()) {
+                try {
+                    if (!follower.outputFile.getAbsoluteFile().equals(outputFile.getAbsoluteFile())) {
+                        FileUtils.copyFile(outputFile, follower.outputFile);
+                    }
+                    follower.result.complete(null);
+                } catch (IOException ioException) {
+                    follower.result.completeExceptionally(new OfficeException("could not copy converted document: "
+                            + follower.outputFile.getName(), ioException));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the fingerprint of the input document, or <code>null</code> if
+     *         neither a {@link DocumentQuarantine} nor a
+     *         {@link ConversionCache} is used, nor duplicates coalesced
+     * @throws OfficeException
+     *             if the input document is quarantined
+     */
+    private String checkQuarantine(File inputFile) throws OfficeException {
+        if ((documentQuarantine == null && conversionCache == null && !coalesceDuplicates) || !inputFile.isFile()) {
+            return null;
+        }
+        String fingerprint;
+        try {
+            fingerprint = DigestUtils.sha256Hex(inputFile);
+        } catch (IOException ioException) {
+            throw new OfficeException("could not read input document: " + inputFile.getName(), ioException);
+        }
+        checkQuarantine(fingerprint, inputFile.getName());
+        return fingerprint;
+    }
+
+    private void checkQuarantine(String fingerprint, String inputName) throws OfficeException {
+        if (documentQuarantine != null && documentQuarantine.isQuarantined(fingerprint)) {
+            throw new OfficeException("input document is quarantined after repeatedly crashing or hanging office: "
+                    + inputName + " (" + fingerprint + ")");
+        }
+    }
+
+    private void recordOutcome(String fingerprint, Throwable throwable) {
+        if (fingerprint == null || documentQuarantine == null) {
+            return;
+        }
+        if (throwable == null) {
+            documentQuarantine.recordSuccess(fingerprint);
+        } else if (throwable instanceof TaskAbortedException && !(throwable instanceof TaskExpiredException)
+                && documentQuarantine.recordAbort(fingerprint)) {
+            logger.warning("quarantining input document " + fingerprint + ": " + throwable.getMessage());
+        }
+    }
+
+    private DocumentFormat getOutputFormat(File outputFile) {
+        String outputExtension = FilenameUtils.getExtension(outputFile.getName());
+        return formatRegistry.getFormatByExtension(outputExtension);
+    }
+
+    private StandardConversionTask createConversionTask(File inputFile, File outputFile, DocumentFormat outputFormat,
+            long deadline) {
         String inputExtension = FilenameUtils.getExtension(inputFile.getName());
         DocumentFormat inputFormat = formatRegistry.getFormatByExtension(inputExtension);
         StandardConversionTask conversionTask = new StandardConversionTask(inputFile, outputFile, outputFormat);
         conversionTask.setDefaultLoadProperties(defaultLoadProperties);
         conversionTask.setInputFormat(inputFormat);
-        officeManager.execute(conversionTask);
+        conversionTask.setPrecompiledProperties(precompiledProperties);
+        conversionTask.setPriority(priority);
+        conversionTask.setTenant(tenant);
+        conversionTask.setDeadline(deadline);
+        return conversionTask;
     }
 
 }
@@ -0,0 +1,118 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
+import org.artofsolving.jodconverter.office.UnoProperties;
+
+/**
+ * The load and store properties of the formats of a
+ * {@link DocumentFormatRegistry}, compiled to {@link UnoProperties} up front
+ * so that conversion tasks neither merge property maps nor build
+ * {@link com.sun.star.beans.PropertyValue}s.
+ * <p>
+ * Only the formats the registry holds when this is built are precompiled: a
+ * format whose properties have been set since (see
+ * {@link DocumentFormat#getModificationCount()}), or that is not in the
+ * registry, has its properties compiled for every task instead, so nothing is
+ * stored for ad-hoc formats and a task never gets stale properties. The
+ * default load properties are copied when this is built.
+ */
+public class PrecompiledProperties {
+
+    /**
+     * The properties of one format, as they were when compiled.
+     */
+    private static class CompiledFormat {
+
+        private final int modificationCount;
+        private final UnoProperties loadProperties;
+        private final Map<DocumentFamily, UnoProperties> storeProperties;
+
+        public CompiledFormat(DocumentFormat format, Map<String,?> defaultLoadProperties) {
+            modificationCount = format.getModificationCount();
+            loadProperties = UnoProperties.compile(AbstractConversionTask.mergeLoadProperties(defaultLoadProperties,
+                    format));
+            storeProperties = new EnumMap<DocumentFamily, UnoProperties>(DocumentFamily.class);
+            if (format.getStorePropertiesByFamily() != null) {
+                for (Map.Entry<DocumentFamily, Map<String,?>> entry : format.getStorePropertiesByFamily().entrySet()) {
+                    if (entry.getValue() != null) {
+                        storeProperties.put(entry.getKey(), UnoProperties.compile(entry.getValue()));
+                    }
+                }
+            }
+        }
+
+    }
+
+    private final Map<String,?> defaultLoadPropertyMap;
+    private final UnoProperties defaultLoadProperties;
+    private final Map<DocumentFormat, CompiledFormat> compiledFormats = new HashMap<DocumentFormat, CompiledFormat>();
+
+    /**
+     * @param defaultLoadProperties
+     *            overridden by the load properties of the input format; may be
+     *            <code>null</code>; later changes to the map are not seen
+     * @param formatRegistry
+     */
+    public PrecompiledProperties(Map<String,?> defaultLoadProperties, DocumentFormatRegistry formatRegistry) {
+        this.defaultLoadPropertyMap = defaultLoadProperties != null ? Collections
+                .unmodifiableMap(new HashMap<String,Object>(defaultLoadProperties)) : null;
+        this.defaultLoadProperties = UnoProperties.compile(defaultLoadPropertyMap);
+        for (DocumentFamily family : DocumentFamily.values()) {
+            for (DocumentFormat format : formatRegistry.getOutputFormats(family)) {
+                if (!compiledFormats.containsKey(format)) {
+                    compiledFormats.put(format, new CompiledFormat(format, defaultLoadPropertyMap));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param inputFormat
+     *            may be <code>null</code>
+     * @return the default load properties overridden by those of the input
+     *         format
+     */
+    public UnoProperties getLoadProperties(DocumentFormat inputFormat) {
+        if (inputFormat == null || inputFormat.getLoadProperties() == null) {
+            return defaultLoadProperties;
+        }
+        CompiledFormat compiledFormat = compiledFormats.get(inputFormat);
+        if (compiledFormat != null && compiledFormat.modificationCount == inputFormat.getModificationCount()) {
+            return compiledFormat.loadProperties;
+        }
+        return UnoProperties.compile(AbstractConversionTask.mergeLoadProperties(defaultLoadPropertyMap, inputFormat));
+    }
+
+    /**
+     * @return <code>null</code> if documents of the family cannot be stored
+     *         in the output format
+     */
+    public UnoProperties getStoreProperties(DocumentFormat outputFormat, DocumentFamily family) {
+        CompiledFormat compiledFormat = compiledFormats.get(outputFormat);
+        if (compiledFormat != null && compiledFormat.modificationCount == outputFormat.getModificationCount()) {
+            return compiledFormat.storeProperties.get(family);
+        }
+        Map<String,?> storeProperties = outputFormat.getStoreProperties(family);
+        return storeProperties != null ? UnoProperties.compile(storeProperties) : null;
+    }
+
+}
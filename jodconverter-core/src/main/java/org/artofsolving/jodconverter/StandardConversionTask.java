@@ -12,25 +12,32 @@
 //
 package org.artofsolving.jodconverter;
 
-import static org.artofsolving.jodconverter.office.OfficeUtils.cast;
-
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 
 import org.artofsolving.jodconverter.document.DocumentFamily;
 import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.office.HedgeableTask;
 import org.artofsolving.jodconverter.office.OfficeException;
+import org.artofsolving.jodconverter.office.UnoProperties;
 
+import com.sun.star.beans.PropertyValue;
 import com.sun.star.lang.XComponent;
-import com.sun.star.util.XRefreshable;
 
-public class StandardConversionTask extends AbstractConversionTask {
+public class StandardConversionTask extends AbstractConversionTask implements HedgeableTask {
+
+    private static final AtomicInteger attemptIndex = new AtomicInteger();
 
     private final DocumentFormat outputFormat;
 
     private Map<String,?> defaultLoadProperties;
     private DocumentFormat inputFormat;
+    private PrecompiledProperties precompiledProperties;
 
     public StandardConversionTask(File inputFile, File outputFile, DocumentFormat outputFormat) {
         super(inputFile, outputFile);
@@ -45,24 +52,92 @@ public class StandardConversionTask extends AbstractConversionTask {
         this.inputFormat = inputFormat;
     }
 
-    @Override
-    protected void modifyDocument(XComponent document) throws OfficeException {
-        XRefreshable refreshable = cast(XRefreshable.class, document);
-        if (refreshable != null) {
-            refreshable.refresh();
+    /**
+     * @param precompiledProperties
+     *            used instead of the property maps; must have been built from
+     *            the same default load properties
+     */
+    public void setPrecompiledProperties(PrecompiledProperties precompiledProperties) {
+        this.precompiledProperties = precompiledProperties;
+    }
+
+    /**
+     * Attempts write to a hidden file next to the output file, so that the
+     * winner can be renamed into place without copying.
+     */
+    public HedgeableTask createAttempt() {
+        File outputFile = getOutputFile();
+        String attemptName = String.format(".%s.attempt%d.%s", FilenameUtils.getBaseName(outputFile.getName()),
+                attemptIndex.getAndIncrement(), FilenameUtils.getExtension(outputFile.getName()));
+        StandardConversionTask attempt = new StandardConversionTask(getInputFile(), new File(
+                outputFile.getAbsoluteFile().getParentFile(), attemptName), outputFormat);
+        attempt.setDefaultLoadProperties(defaultLoadProperties);
+        attempt.setInputFormat(inputFormat);
+        attempt.setPrecompiledProperties(precompiledProperties);
+        attempt.setPriority(getPriority());
+        attempt.setTenant(getTenant());
+        attempt.setDeadline(getDeadline());
+        return attempt;
+    }
+
+    public void commitAttempt(HedgeableTask attempt) throws OfficeException {
+        File attemptFile = ((StandardConversionTask) attempt).getOutputFile();
+        File outputFile = getOutputFile();
+        try {
+            if (outputFile.exists()) {
+                FileUtils.forceDelete(outputFile);
+            }
+            FileUtils.moveFile(attemptFile, outputFile);
+        } catch (IOException ioException) {
+            throw new OfficeException("could not move converted document into place: " + outputFile.getName(),
+                    ioException);
         }
     }
 
+    public void discardAttempt(HedgeableTask attempt) {
+        FileUtils.deleteQuietly(((StandardConversionTask) attempt).getOutputFile());
+    }
+
+    /**
+     * Input extension, output extension and input size, rounded down to a
+     * power of 4, e.g. <code>xls&gt;pdf:4^10</code> for a 1 to 4 MB
+     * spreadsheet exported to PDF.
+     */
     @Override
-    protected Map<String,?> getLoadProperties(File inputFile) {
-        Map<String,Object> loadProperties = new HashMap<String,Object>();
-        if (defaultLoadProperties != null) {
-            loadProperties.putAll(defaultLoadProperties);
+    public String getLatencyClass() {
+        if (outputFormat == null) {
+            return null;
         }
-        if (inputFormat != null && inputFormat.getLoadProperties() != null) {
-            loadProperties.putAll(inputFormat.getLoadProperties());
+        File inputFile = getInputFile();
+        return getLatencyClass(FilenameUtils.getExtension(inputFile.getName()).toLowerCase(),
+                outputFormat.getExtension(), inputFile.length());
+    }
+
+    static String getLatencyClass(String inputExtension, String outputExtension, long inputSize) {
+        int sizeBucket = (63 - Long.numberOfLeadingZeros(Math.max(inputSize, 1L))) / 2;
+        return String.format("%s>%s:4^%d", inputExtension, outputExtension, sizeBucket);
+    }
+
+    /**
+     * Conversions of the same {@link DocumentFamily} share their affinity, so
+     * that each office process keeps fewer modules loaded.
+     */
+    @Override
+    public String getAffinityKey() {
+        if (inputFormat != null && inputFormat.getInputFamily() != null) {
+            return inputFormat.getInputFamily().name();
         }
-        return loadProperties;
+        return null;
+    }
+
+    @Override
+    protected void modifyDocument(XComponent document) throws OfficeException {
+        refreshDocument(document);
+    }
+
+    @Override
+    protected Map<String,?> getLoadProperties(File inputFile) {
+        return mergeLoadProperties(defaultLoadProperties, inputFormat);
     }
 
     @Override
@@ -71,4 +146,22 @@ public class StandardConversionTask extends AbstractConversionTask {
         return outputFormat.getStoreProperties(family);
     }
 
+    @Override
+    protected PropertyValue[] getUnoLoadProperties(File inputFile) {
+        if (precompiledProperties == null) {
+            return super.getUnoLoadProperties(inputFile);
+        }
+        return precompiledProperties.getLoadProperties(inputFormat).toArray();
+    }
+
+    @Override
+    protected PropertyValue[] getUnoStoreProperties(File outputFile, XComponent document) {
+        if (precompiledProperties == null) {
+            return super.getUnoStoreProperties(outputFile, document);
+        }
+        DocumentFamily family = OfficeDocumentUtils.getDocumentFamily(document);
+        UnoProperties storeProperties = precompiledProperties.getStoreProperties(outputFormat, family);
+        return storeProperties != null ? storeProperties.toArray() : null;
+    }
+
 }
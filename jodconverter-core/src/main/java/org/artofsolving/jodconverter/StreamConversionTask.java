@@ -0,0 +1,166 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.office.OfficeException;
+import org.artofsolving.jodconverter.office.UnoProperties;
+
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.lang.XComponent;
+import com.sun.star.lib.uno.adapter.ByteArrayToXInputStreamAdapter;
+import com.sun.star.lib.uno.adapter.OutputStreamToXOutputStreamAdapter;
+
+/**
+ * Converts a document held in memory, writing the result to an
+ * {@link OutputStream}, without temporary files: office reads and writes
+ * <code>private:stream</code> URLs through UNO stream adapters.
+ * <p>
+ * The input is passed as a byte array because most import filters need to
+ * seek in their input. Should the conversion fail while the document is being
+ * stored, part of the output may already have been written.
+ */
+public class StreamConversionTask extends AbstractConversionTask {
+
+    private static final String PRIVATE_STREAM_URL = "private:stream";
+
+    private final byte[] input;
+    private final DocumentFormat inputFormat;
+    private final OutputStream outputStream;
+    private final DocumentFormat outputFormat;
+
+    private Map<String,?> defaultLoadProperties;
+    private PrecompiledProperties precompiledProperties;
+
+    public StreamConversionTask(byte[] input, DocumentFormat inputFormat, OutputStream outputStream,
+            DocumentFormat outputFormat) {
+        super(null, null);
+        this.input = input;
+        this.inputFormat = inputFormat;
+        this.outputStream = outputStream;
+        this.outputFormat = outputFormat;
+    }
+
+    public void setDefaultLoadProperties(Map<String, ?> defaultLoadProperties) {
+        this.defaultLoadProperties = defaultLoadProperties;
+    }
+
+    /**
+     * @param precompiledProperties
+     *            overlaid with the streams instead of copying the property
+     *            maps; must have been built from the same default load
+     *            properties
+     */
+    public void setPrecompiledProperties(PrecompiledProperties precompiledProperties) {
+        this.precompiledProperties = precompiledProperties;
+    }
+
+    @Override
+    protected String getInputUrl() {
+        return PRIVATE_STREAM_URL;
+    }
+
+    @Override
+    protected String getOutputUrl() {
+        return PRIVATE_STREAM_URL;
+    }
+
+    @Override
+    protected String getInputName() {
+        return "input stream (" + inputFormat.getExtension() + ")";
+    }
+
+    @Override
+    protected String getOutputName() {
+        return "output stream (" + outputFormat.getExtension() + ")";
+    }
+
+    @Override
+    public String getLatencyClass() {
+        return StandardConversionTask.getLatencyClass(inputFormat.getExtension(), outputFormat.getExtension(),
+                input.length);
+    }
+
+    @Override
+    public String getAffinityKey() {
+        if (inputFormat.getInputFamily() != null) {
+            return inputFormat.getInputFamily().name();
+        }
+        return null;
+    }
+
+    @Override
+    protected void modifyDocument(XComponent document) throws OfficeException {
+        refreshDocument(document);
+    }
+
+    @Override
+    protected Map<String,?> getLoadProperties(File inputFile) {
+        Map<String,Object> loadProperties = mergeLoadProperties(defaultLoadProperties, inputFormat);
+        loadProperties.put("InputStream", new ByteArrayToXInputStreamAdapter(input));
+        return loadProperties;
+    }
+
+    @Override
+    protected Map<String,?> getStoreProperties(File outputFile, XComponent document) {
+        return getStoreProperties(OfficeDocumentUtils.getDocumentFamily(document));
+    }
+
+    Map<String,?> getStoreProperties(DocumentFamily family) {
+        Map<String,?> formatProperties = outputFormat.getStoreProperties(family);
+        if (formatProperties == null) {
+            return null;
+        }
+        Map<String,Object> storeProperties = new HashMap<String,Object>(formatProperties);
+        storeProperties.put("OutputStream", createOutputStreamAdapter());
+        return storeProperties;
+    }
+
+    @Override
+    protected PropertyValue[] getUnoLoadProperties(File inputFile) {
+        if (precompiledProperties == null) {
+            return super.getUnoLoadProperties(inputFile);
+        }
+        return precompiledProperties.getLoadProperties(inputFormat)
+                .with("InputStream", new ByteArrayToXInputStreamAdapter(input)).toArray();
+    }
+
+    @Override
+    protected PropertyValue[] getUnoStoreProperties(File outputFile, XComponent document) {
+        if (precompiledProperties == null) {
+            return super.getUnoStoreProperties(outputFile, document);
+        }
+        DocumentFamily family = OfficeDocumentUtils.getDocumentFamily(document);
+        UnoProperties storeProperties = precompiledProperties.getStoreProperties(outputFormat, family);
+        if (storeProperties == null) {
+            return null;
+        }
+        return storeProperties.with("OutputStream", createOutputStreamAdapter()).toArray();
+    }
+
+    /**
+     * Office closes the stream it stores to, but the caller's stream is left
+     * open for the caller to close.
+     */
+    private OutputStreamToXOutputStreamAdapter createOutputStreamAdapter() {
+        return new OutputStreamToXOutputStreamAdapter(new CloseShieldOutputStream(outputStream));
+    }
+
+}
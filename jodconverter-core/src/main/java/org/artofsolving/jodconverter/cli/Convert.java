@@ -14,6 +14,9 @@ package org.artofsolving.jodconverter.cli;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -24,6 +27,8 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.artofsolving.jodconverter.ConversionRequest;
+import org.artofsolving.jodconverter.ConversionResult;
 import org.artofsolving.jodconverter.OfficeDocumentConverter;
 import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
 import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
@@ -39,10 +44,11 @@ public class Convert {
 
     public static final int STATUS_OK = 0;
     public static final int STATUS_MISSING_INPUT_FILE = 1;
+    public static final int STATUS_CONVERSION_FAILED = 2;
     public static final int STATUS_INVALID_ARGUMENTS = 255;
 
     private static final Option OPTION_OUTPUT_FORMAT = new Option("o", "output-format", true, "output format (e.g. pdf)");
-    private static final Option OPTION_PORT = new Option("p", "port", true, "office socket port (optional; defaults to 2002)");
+    private static final Option OPTION_PORT = new Option("p", "port", true, "office socket port, or comma-separated ports to convert several files in parallel (optional; defaults to 2002)");
     private static final Option OPTION_REGISTRY = new Option("r", "registry", true, "document formats registry configuration file (optional)");
     private static final Option OPTION_TIMEOUT = new Option("t", "timeout", true, "maximum conversion time in seconds (optional; defaults to 120)");
     private static final Option OPTION_USER_PROFILE = new Option("u", "user-profile", true, "use settings from the given user installation dir (optional)");
@@ -69,9 +75,13 @@ public class Convert {
             outputFormat = commandLine.getOptionValue(OPTION_OUTPUT_FORMAT.getOpt());
         }
 
-        int port = DEFAULT_OFFICE_PORT;
+        int[] ports = { DEFAULT_OFFICE_PORT };
         if (commandLine.hasOption(OPTION_PORT.getOpt())) {
-            port = Integer.parseInt(commandLine.getOptionValue(OPTION_PORT.getOpt()));
+            String[] portValues = commandLine.getOptionValue(OPTION_PORT.getOpt()).split(",");
+            ports = new int[portValues.length];
+            for (int i = 0; i < portValues.length; i++) {
+                ports[i] = Integer.parseInt(portValues[i].trim());
+            }
         }
 
         String[] fileNames = commandLine.getArgs();
@@ -92,7 +102,7 @@ public class Convert {
         }
 
         DefaultOfficeManagerConfiguration configuration = new DefaultOfficeManagerConfiguration();
-        configuration.setPortNumber(port);
+        configuration.setPortNumbers(ports);
         if (commandLine.hasOption(OPTION_TIMEOUT.getOpt())) {
             int timeout = Integer.parseInt(commandLine.getOptionValue(OPTION_TIMEOUT.getOpt()));
             configuration.setTaskExecutionTimeout(timeout * 1000);
@@ -105,22 +115,40 @@ public class Convert {
         OfficeManager officeManager = configuration.buildOfficeManager();
         officeManager.start();
         OfficeDocumentConverter converter = new OfficeDocumentConverter(officeManager, registry);
+        int failures = 0;
         try {
             if (outputFormat == null) {
                 File inputFile = new File(fileNames[0]);
                 File outputFile = new File(fileNames[1]);
                 converter.convert(inputFile, outputFile);
             } else {
+                List<ConversionRequest> requests = new ArrayList<ConversionRequest>(fileNames.length);
                 for (int i = 0; i < fileNames.length; i++) {
                     File inputFile = new File(fileNames[i]);
                     String outputName = FilenameUtils.getBaseName(fileNames[i]) + "." + outputFormat;
                     File outputFile = new File(FilenameUtils.getFullPath(fileNames[i]) + outputName);
-                    converter.convert(inputFile, outputFile);
+                    requests.add(new ConversionRequest(inputFile, outputFile));
+                }
+                List<ConversionResult> results = converter.convertAll(requests, new Consumer<ConversionResult>() {
+                    public void accept(ConversionResult result) {
+                        if (!result.isSuccessful()) {
+                            System.err.println(result);
+                        }
+                    }
+                });
+                for (ConversionResult result : results) {
+                    if (!result.isSuccessful()) {
+                        failures++;
+                    }
                 }
             }
         } finally {
             officeManager.stop();
         }
+        if (failures > 0) {
+            System.err.println(failures + " of " + fileNames.length + " conversions failed");
+            System.exit(STATUS_CONVERSION_FAILED);
+        }
     }
     
 }
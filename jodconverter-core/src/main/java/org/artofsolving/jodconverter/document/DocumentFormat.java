@@ -23,6 +23,7 @@ public class DocumentFormat {
 	private DocumentFamily inputFamily;
 	private Map<String, ?> loadProperties;
 	private Map<DocumentFamily, Map<String, ?>> storePropertiesByFamily;
+	private volatile int modificationCount;
 
 	public DocumentFormat() {
 		// default
@@ -72,6 +73,7 @@ public class DocumentFormat {
 
 	public void setLoadProperties(Map<String, ?> loadProperties) {
 		this.loadProperties = loadProperties;
+		modificationCount++;
 	}
 
 	public Map<DocumentFamily, Map<String, ?>> getStorePropertiesByFamily() {
@@ -80,6 +82,7 @@ public class DocumentFormat {
 
 	public void setStorePropertiesByFamily(Map<DocumentFamily, Map<String, ?>> storePropertiesByFamily) {
 		this.storePropertiesByFamily = storePropertiesByFamily;
+		modificationCount++;
 	}
 
 	public void setStoreProperties(DocumentFamily family, Map<String, ?> storeProperties) {
@@ -87,6 +90,7 @@ public class DocumentFormat {
 			storePropertiesByFamily = new HashMap<DocumentFamily, Map<String, ?>>();
 		}
 		storePropertiesByFamily.put(family, storeProperties);
+		modificationCount++;
 	}
 
 	public Map<String, ?> getStoreProperties(DocumentFamily family) {
@@ -96,6 +100,16 @@ public class DocumentFormat {
 		return storePropertiesByFamily.get(family);
 	}
 
+	/**
+	 * @return a number that changes whenever the load or store properties
+	 *         are set, so that properties derived from them can tell they
+	 *         are out of date. Changes made to the property maps themselves,
+	 *         rather than through the setters, are not counted.
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -0,0 +1,85 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * Tracks the outcome of the last tasks run by one office instance of a pool,
+ * and opens once too many of them failed so that the instance can be taken
+ * out of rotation until it has been recycled and probed.
+ * <p>
+ * Not thread safe: all access must happen while holding the pool lock.
+ */
+class CircuitBreaker {
+
+    static final int WINDOW_SIZE = 10;
+    static final int MIN_SAMPLES = 5;
+
+    private final double failureRateThreshold;
+    private final boolean[] failures = new boolean[WINDOW_SIZE];
+    private int sampleCount = 0;
+    private int nextSample = 0;
+    private int failureCount = 0;
+    private boolean open = false;
+
+    /**
+     * @param failureRateThreshold
+     *            the fraction of the last {@value #WINDOW_SIZE} tasks that must
+     *            have failed for the circuit to open
+     */
+    public CircuitBreaker(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * @return whether this outcome opened the circuit
+     */
+    public boolean recordOutcome(boolean failed) {
+        if (sampleCount == WINDOW_SIZE) {
+            if (failures[nextSample]) {
+                failureCount--;
+            }
+        } else {
+            sampleCount++;
+        }
+        failures[nextSample] = failed;
+        if (failed) {
+            failureCount++;
+        }
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+        if (!open && sampleCount >= MIN_SAMPLES && getFailureRate() >= failureRateThreshold) {
+            open = true;
+            return true;
+        }
+        return false;
+    }
+
+    public double getFailureRate() {
+        return sampleCount > 0 ? failureCount / (double) sampleCount : 0.0;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the circuit and forgets past outcomes, once the instance has
+     * been recycled and passed its probe.
+     */
+    public void reset() {
+        sampleCount = 0;
+        nextSample = 0;
+        failureCount = 0;
+        open = false;
+    }
+
+}
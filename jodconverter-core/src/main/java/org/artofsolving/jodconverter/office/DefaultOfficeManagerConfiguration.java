@@ -13,6 +13,9 @@
 package org.artofsolving.jodconverter.office;
 
 import java.io.File;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.artofsolving.jodconverter.process.ProcessManager;
 import org.artofsolving.jodconverter.process.PureJavaProcessManager;
@@ -33,10 +36,39 @@ public class DefaultOfficeManagerConfiguration {
 	private String[] runAsArgs = null;
 	private File templateProfileDir = null;
 	private File workDir = new File(System.getProperty("java.io.tmpdir"));
-	private long taskQueueTimeout = 30000L; // 30 seconds
+	private long taskQueueTimeout = ProcessPoolOfficeManagerSettings.DEFAULT_TASK_QUEUE_TIMEOUT; // 30 seconds
+	private final Map<TaskPriority, Long> laneQueueTimeouts = new EnumMap<TaskPriority, Long>(TaskPriority.class);
+	private long priorityAgingInterval = ProcessPoolOfficeManagerSettings.DEFAULT_PRIORITY_AGING_INTERVAL;
 	private long taskExecutionTimeout = PooledOfficeManagerSettings.DEFAULT_TASK_EXECUTION_TIMEOUT; // 2 minutes
+	private double adaptiveTimeoutPercentile = 0.0; // disabled
+	private double adaptiveTimeoutFactor = ProcessPoolOfficeManagerSettings.DEFAULT_ADAPTIVE_TIMEOUT_FACTOR;
+	private long minTaskExecutionTimeout = ProcessPoolOfficeManagerSettings.DEFAULT_MIN_TASK_EXECUTION_TIMEOUT;
+	private long maxTaskExecutionTimeout = ProcessPoolOfficeManagerSettings.DEFAULT_MAX_TASK_EXECUTION_TIMEOUT;
 	private int maxTasksPerProcess =PooledOfficeManagerSettings.DEFAULT_MAX_TASKS_PER_PROCESS;
+	private long maxResidentMemory = 0L; // bytes; unlimited
+	private long maxCpuTime = 0L; // unlimited
+	private double recycleJitter = ProcessPoolOfficeManagerSettings.DEFAULT_RECYCLE_JITTER;
+	private int maxConcurrentRestarts = 0; // unlimited
 	private long retryTimeout = DEFAULT_RETRY_TIMEOUT;
+	private DispatchPolicy dispatchPolicy = DispatchPolicy.ROUND_ROBIN;
+	private boolean affinityRouting = false;
+	private boolean virtualThreads = false;
+	private double hedgingPercentile = 0.0; // disabled
+	private double circuitBreakerFailureRate = 0.0; // disabled
+	private long healthCheckInterval = 0L; // disabled
+	private long healthCheckTimeout = ProcessPoolOfficeManagerSettings.DEFAULT_HEALTH_CHECK_TIMEOUT;
+	private int minInstances = -1; // defaults to maxInstances
+	private int maxInstances = -1; // defaults to the number of ports or pipes not used by standby instances
+	private int standbyInstances = 0;
+	private int startupQuorum = 0; // all of minInstances
+	private int scaleUpQueueDepth = ProcessPoolOfficeManagerSettings.DEFAULT_SCALE_UP_QUEUE_DEPTH;
+	private long scaleUpQueueWait = ProcessPoolOfficeManagerSettings.DEFAULT_SCALE_UP_QUEUE_WAIT;
+	private long instanceIdleTimeout = ProcessPoolOfficeManagerSettings.DEFAULT_INSTANCE_IDLE_TIMEOUT;
+	private int maxQueuedTasks = 0; // unbounded
+	private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL_FAST;
+	private long admissionTimeout = ProcessPoolOfficeManagerSettings.DEFAULT_ADMISSION_TIMEOUT;
+	private final Map<String, Integer> tenantWeights = new HashMap<String, Integer>();
+	private final Map<String, Integer> tenantConcurrencyLimits = new HashMap<String, Integer>();
 
 	private ProcessManager processManager = null; // lazily initialised
 
@@ -86,6 +118,26 @@ public class DefaultOfficeManagerConfiguration {
 		return this;
 	}
 
+	/**
+	 * Convenience for {@link #setPortNumbers(int...)} with every port from
+	 * <code>firstPort</code> to <code>lastPort</code> inclusive, typically
+	 * combined with {@link #setMinInstances(int)} for an elastic pool.
+	 * 
+	 * @param firstPort
+	 * @param lastPort
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setPortRange(int firstPort, int lastPort)
+			throws IllegalArgumentException {
+		checkArgument("lastPort", lastPort >= firstPort, "must not be lower than firstPort");
+		int[] portNumbers = new int[lastPort - firstPort + 1];
+		for (int i = 0; i < portNumbers.length; i++) {
+			portNumbers[i] = firstPort + i;
+		}
+		return setPortNumbers(portNumbers);
+	}
+
 	public DefaultOfficeManagerConfiguration setPipeName(String pipeName) throws NullPointerException {
 		checkArgumentNotNull("pipeName", pipeName);
 		this.pipeNames = new String[] { pipeName };
@@ -134,16 +186,184 @@ public class DefaultOfficeManagerConfiguration {
 		return this;
 	}
 
+	/**
+	 * Overrides {@link #setTaskQueueTimeout(long)} for tasks of the given
+	 * {@link TaskPriority}, e.g. to fail interactive requests quickly while
+	 * letting batch work wait longer.
+	 * 
+	 * @param priority
+	 * @param taskQueueTimeout
+	 *            in milliseconds
+	 * @return
+	 * @throws NullPointerException
+	 */
+	public DefaultOfficeManagerConfiguration setTaskQueueTimeout(TaskPriority priority, long taskQueueTimeout)
+			throws NullPointerException {
+		checkArgumentNotNull("priority", priority);
+		laneQueueTimeouts.put(priority, Long.valueOf(taskQueueTimeout));
+		return this;
+	}
+
+	/**
+	 * Queued tasks are promoted by one {@link TaskPriority} level for every
+	 * interval spent waiting, so that a steady stream of interactive tasks
+	 * cannot starve batch tasks forever. Defaults to 10 seconds; zero disables
+	 * aging.
+	 * 
+	 * @param priorityAgingInterval
+	 *            in milliseconds
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setPriorityAgingInterval(long priorityAgingInterval) {
+		this.priorityAgingInterval = priorityAgingInterval;
+		return this;
+	}
+
 	public DefaultOfficeManagerConfiguration setTaskExecutionTimeout(long taskExecutionTimeout) {
 		this.taskExecutionTimeout = taskExecutionTimeout;
 		return this;
 	}
 
+	/**
+	 * Enables adaptive execution timeouts: once enough tasks of a latency
+	 * class (see {@link OfficeTask#getLatencyClass()}; for conversions, the
+	 * input and output formats and the input size) have completed, tasks of
+	 * that class time out after this percentile of their recent execution
+	 * times multiplied by the <em>adaptiveTimeoutFactor</em>, but no sooner
+	 * than <em>minTaskExecutionTimeout</em> and no later than
+	 * <em>maxTaskExecutionTimeout</em>. Until then, and for tasks without a
+	 * latency class, <em>taskExecutionTimeout</em> applies. A task that runs
+	 * out of an adaptive timeout is treated as hung, just like one that runs
+	 * out of <em>taskExecutionTimeout</em>. Disabled by default.
+	 * 
+	 * @param adaptiveTimeoutPercentile
+	 *            e.g. 0.99; zero disables adaptive timeouts
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setAdaptiveTimeoutPercentile(double adaptiveTimeoutPercentile)
+			throws IllegalArgumentException {
+		checkArgument("adaptiveTimeoutPercentile", adaptiveTimeoutPercentile >= 0.0
+				&& adaptiveTimeoutPercentile <= 1.0, "must be between 0 and 1");
+		this.adaptiveTimeoutPercentile = adaptiveTimeoutPercentile;
+		return this;
+	}
+
+	/**
+	 * Defaults to 3.
+	 * 
+	 * @param adaptiveTimeoutFactor
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setAdaptiveTimeoutFactor(double adaptiveTimeoutFactor)
+			throws IllegalArgumentException {
+		checkArgument("adaptiveTimeoutFactor", adaptiveTimeoutFactor >= 1.0, "must be at least 1");
+		this.adaptiveTimeoutFactor = adaptiveTimeoutFactor;
+		return this;
+	}
+
+	/**
+	 * Defaults to 10 seconds.
+	 * 
+	 * @param minTaskExecutionTimeout
+	 *            in milliseconds
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setMinTaskExecutionTimeout(long minTaskExecutionTimeout) {
+		this.minTaskExecutionTimeout = minTaskExecutionTimeout;
+		return this;
+	}
+
+	/**
+	 * Defaults to 10 minutes.
+	 * 
+	 * @param maxTaskExecutionTimeout
+	 *            in milliseconds
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setMaxTaskExecutionTimeout(long maxTaskExecutionTimeout) {
+		this.maxTaskExecutionTimeout = maxTaskExecutionTimeout;
+		return this;
+	}
+
 	public DefaultOfficeManagerConfiguration setMaxTasksPerProcess(int maxTasksPerProcess) {
 		this.maxTasksPerProcess = maxTasksPerProcess;
 		return this;
 	}
 
+	/**
+	 * Restarts an office process, before it executes its next task, once its
+	 * resident memory exceeds this many megabytes. Sampled after each task
+	 * from <tt>/proc</tt> with {@link LinuxProcessManager}, or through SIGAR
+	 * with {@link SigarProcessManager}; other {@link ProcessManager}s cannot
+	 * sample it. Unlimited by default.
+	 * 
+	 * @param maxResidentMemory
+	 *            in megabytes, or zero for no limit
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setMaxResidentMemory(long maxResidentMemory)
+			throws IllegalArgumentException {
+		checkArgument("maxResidentMemory", maxResidentMemory >= 0L, "must not be negative");
+		checkArgument("maxResidentMemory", maxResidentMemory <= Long.MAX_VALUE / (1024L * 1024L), "is too large");
+		this.maxResidentMemory = maxResidentMemory * 1024L * 1024L;
+		return this;
+	}
+
+	/**
+	 * Restarts an office process, before it executes its next task, once it
+	 * has consumed this much CPU time since it was started; sampled like
+	 * {@link #setMaxResidentMemory(long)}. Unlimited by default.
+	 * 
+	 * @param maxCpuTime
+	 *            in milliseconds, or zero for no limit
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setMaxCpuTime(long maxCpuTime) throws IllegalArgumentException {
+		checkArgument("maxCpuTime", maxCpuTime >= 0L, "must not be negative");
+		this.maxCpuTime = maxCpuTime;
+		return this;
+	}
+
+	/**
+	 * Lowers the task limit of each office process by a random fraction of up
+	 * to <code>recycleJitter</code> below <code>maxTasksPerProcess</code>,
+	 * drawn anew after every restart, so that processes started together do
+	 * not all restart together, e.g. 0.1. Disabled (zero) by default, so that
+	 * processes restart after exactly <code>maxTasksPerProcess</code> tasks.
+	 * 
+	 * @param recycleJitter
+	 *            between 0 and 1
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setRecycleJitter(double recycleJitter) throws IllegalArgumentException {
+		checkArgument("recycleJitter", recycleJitter >= 0.0 && recycleJitter < 1.0, "must be between 0 and 1");
+		this.recycleJitter = recycleJitter;
+		return this;
+	}
+
+	/**
+	 * Limits how many office processes may be restarting at the same time
+	 * because they reached their task limit. A process that is due while the
+	 * limit is reached keeps executing tasks until it gets its turn.
+	 * Unlimited by default.
+	 * 
+	 * @param maxConcurrentRestarts
+	 *            a positive number, or zero for no limit
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setMaxConcurrentRestarts(int maxConcurrentRestarts)
+			throws IllegalArgumentException {
+		checkArgument("maxConcurrentRestarts", maxConcurrentRestarts >= 0, "must not be negative");
+		this.maxConcurrentRestarts = maxConcurrentRestarts;
+		return this;
+	}
+
 	/**
 	 * Provide a specific {@link ProcessManager} implementation
 	 * <p>
@@ -175,6 +395,330 @@ public class DefaultOfficeManagerConfiguration {
 		return this;
 	}
 
+	/**
+	 * Sets how the next task is assigned to one of the idle office processes
+	 * when more than one is available. Defaults to
+	 * {@link DispatchPolicy#ROUND_ROBIN}.
+	 * 
+	 * @param dispatchPolicy
+	 * @return
+	 * @throws NullPointerException
+	 */
+	public DefaultOfficeManagerConfiguration setDispatchPolicy(DispatchPolicy dispatchPolicy)
+			throws NullPointerException {
+		checkArgumentNotNull("dispatchPolicy", dispatchPolicy);
+		this.dispatchPolicy = dispatchPolicy;
+		return this;
+	}
+
+	/**
+	 * Routes each task preferably to an idle office process that recently ran
+	 * tasks with the same {@link OfficeTask#getAffinityKey()}, i.e. for
+	 * conversions the same document family, then to one that has not loaded
+	 * any family yet, and only then to any idle process. Each process thus
+	 * keeps fewer office modules loaded. The {@link DispatchPolicy} decides
+	 * between equally suited processes. Disabled by default.
+	 * 
+	 * @param affinityRouting
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setAffinityRouting(boolean affinityRouting) {
+		this.affinityRouting = affinityRouting;
+		return this;
+	}
+
+	/**
+	 * Enables hedged execution of {@link TaskPriority#INTERACTIVE} tasks that
+	 * implement {@link HedgeableTask}, such as conversions: once such a task
+	 * has been running for longer than the given percentile of the recent
+	 * execution times of tasks of its latency class (see
+	 * {@link OfficeTask#getLatencyClass()}), a second attempt is started on
+	 * another idle office process, if there is one. The first attempt to
+	 * succeed wins and the other is cancelled; each writes to a temporary file
+	 * and the winner's is renamed into place. Disabled by default.
+	 * 
+	 * @param hedgingPercentile
+	 *            e.g. 0.95; zero disables hedging
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setHedgingPercentile(double hedgingPercentile)
+			throws IllegalArgumentException {
+		checkArgument("hedgingPercentile", hedgingPercentile >= 0.0 && hedgingPercentile < 1.0,
+				"must be between 0 and 1");
+		this.hedgingPercentile = hedgingPercentile;
+		return this;
+	}
+
+	/**
+	 * Enables a circuit breaker per office process: once at least this
+	 * fraction of its last {@value CircuitBreaker#WINDOW_SIZE} tasks was
+	 * aborted, i.e. timed out or lost the connection, the process is taken
+	 * out of rotation (a standby instance takes its place if there is one),
+	 * restarted with a fresh copy of the profile and only given work again
+	 * once it answers a probe. Tasks that fail because of their document do
+	 * not count. Without a standby instance, at most half of the pool and
+	 * never the last active process is quarantined. Disabled by default.
+	 * 
+	 * @param circuitBreakerFailureRate
+	 *            e.g. 0.5; zero disables circuit breaking
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setCircuitBreakerFailureRate(double circuitBreakerFailureRate)
+			throws IllegalArgumentException {
+		checkArgument("circuitBreakerFailureRate", circuitBreakerFailureRate >= 0.0
+				&& circuitBreakerFailureRate <= 1.0, "must be between 0 and 1");
+		this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+		return this;
+	}
+
+	/**
+	 * Enables health checks: office processes that have been idle for this
+	 * long are sent a cheap UNO call, and restarted if it fails or does not
+	 * answer within the <em>healthCheckTimeout</em>, so that a hung process is
+	 * found before a task is given to it rather than after the task's
+	 * <em>taskExecutionTimeout</em>. The round trip time is reported by
+	 * {@link MonitoredOfficeManager#getHealthCheckLatency()}. Disabled by
+	 * default.
+	 * 
+	 * @param healthCheckInterval
+	 *            in milliseconds; zero disables health checks
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setHealthCheckInterval(long healthCheckInterval)
+			throws IllegalArgumentException {
+		checkArgument("healthCheckInterval", healthCheckInterval >= 0L, "must not be negative");
+		this.healthCheckInterval = healthCheckInterval;
+		return this;
+	}
+
+	/**
+	 * Defaults to 5 seconds.
+	 * 
+	 * @param healthCheckTimeout
+	 *            in milliseconds
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setHealthCheckTimeout(long healthCheckTimeout)
+			throws IllegalArgumentException {
+		checkArgument("healthCheckTimeout", healthCheckTimeout > 0L, "must be positive");
+		this.healthCheckTimeout = healthCheckTimeout;
+		return this;
+	}
+
+	/**
+	 * Runs task execution, dispatching and office process supervision on
+	 * virtual threads instead of platform threads. Requires Java 21 or later;
+	 * on older runtimes platform threads are used and a warning is logged.
+	 * Combined with {@link OfficeManager#executeAsync(OfficeTask)}, which
+	 * parks no thread while a task is queued, large numbers of pending
+	 * conversions then need no more than a few platform threads. Disabled by
+	 * default.
+	 * 
+	 * @param virtualThreads
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+		return this;
+	}
+
+	/**
+	 * Sets the number of office processes started by
+	 * {@link OfficeManager#start()} and kept running however idle they are.
+	 * <p>
+	 * Defaults to the maximum number of instances, i.e. a fixed size pool. A
+	 * lower value makes the pool elastic: additional processes are started
+	 * when tasks queue up and stopped again after
+	 * {@link #setInstanceIdleTimeout(long)}. Zero is allowed.
+	 * 
+	 * @param minInstances
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setMinInstances(int minInstances) throws IllegalArgumentException {
+		checkArgument("minInstances", minInstances >= 0, "must not be negative");
+		this.minInstances = minInstances;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of office processes run at the same time.
+	 * <p>
+	 * Defaults to, and together with {@link #setStandbyInstances(int)} must
+	 * not exceed, the number of configured port numbers or pipe names.
+	 * 
+	 * @param maxInstances
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setMaxInstances(int maxInstances) throws IllegalArgumentException {
+		checkArgument("maxInstances", maxInstances > 0, "must be positive");
+		this.maxInstances = maxInstances;
+		return this;
+	}
+
+	/**
+	 * Office processes are started, and stopped, in parallel. By default
+	 * {@link OfficeManager#start()} returns once all <code>minInstances</code>
+	 * are connected; with a startup quorum it returns as soon as that many
+	 * are, and the others join the pool once they are ready.
+	 * 
+	 * @param startupQuorum
+	 *            a positive number, or zero to wait for all instances
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setStartupQuorum(int startupQuorum) throws IllegalArgumentException {
+		checkArgument("startupQuorum", startupQuorum >= 0, "must not be negative");
+		this.startupQuorum = startupQuorum;
+		return this;
+	}
+
+	/**
+	 * Keeps this many office processes started but unused, so that an
+	 * instance reaching <code>maxTasksPerProcess</code> is swapped for a warm
+	 * one instead of making the next task wait for its restart; the old
+	 * process is stopped and a new standby started in the background. An
+	 * elastic pool also promotes standby instances when scaling up. Each
+	 * standby instance needs a port number or pipe name of its own. Defaults
+	 * to zero.
+	 * 
+	 * @param standbyInstances
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setStandbyInstances(int standbyInstances)
+			throws IllegalArgumentException {
+		checkArgument("standbyInstances", standbyInstances >= 0, "must not be negative");
+		this.standbyInstances = standbyInstances;
+		return this;
+	}
+
+	/**
+	 * In an elastic pool, start an additional office process as soon as this
+	 * many tasks are waiting for one. Defaults to 4.
+	 * 
+	 * @param scaleUpQueueDepth
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setScaleUpQueueDepth(int scaleUpQueueDepth) {
+		checkArgument("scaleUpQueueDepth", scaleUpQueueDepth > 0, "must be positive");
+		this.scaleUpQueueDepth = scaleUpQueueDepth;
+		return this;
+	}
+
+	/**
+	 * In an elastic pool, start an additional office process once a task has
+	 * been waiting this many milliseconds for one. Defaults to 2 seconds.
+	 * 
+	 * @param scaleUpQueueWait
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setScaleUpQueueWait(long scaleUpQueueWait) {
+		this.scaleUpQueueWait = scaleUpQueueWait;
+		return this;
+	}
+
+	/**
+	 * In an elastic pool, stop office processes that have been idle for this
+	 * many milliseconds, as long as more than <code>minInstances</code> are
+	 * running. Defaults to 5 minutes; zero disables retiring.
+	 * 
+	 * @param instanceIdleTimeout
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setInstanceIdleTimeout(long instanceIdleTimeout) {
+		this.instanceIdleTimeout = instanceIdleTimeout;
+		return this;
+	}
+
+	/**
+	 * Bounds the number of tasks waiting for an office process; once reached,
+	 * new tasks are handled according to
+	 * {@link #setRejectionPolicy(RejectionPolicy)}. Unbounded by default.
+	 * 
+	 * @param maxQueuedTasks
+	 *            a positive number, or zero for no limit
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setMaxQueuedTasks(int maxQueuedTasks) throws IllegalArgumentException {
+		checkArgument("maxQueuedTasks", maxQueuedTasks >= 0, "must not be negative");
+		this.maxQueuedTasks = maxQueuedTasks;
+		return this;
+	}
+
+	/**
+	 * Sets what happens to new tasks while <code>maxQueuedTasks</code> are
+	 * already waiting. Defaults to {@link RejectionPolicy#FAIL_FAST}.
+	 * 
+	 * @param rejectionPolicy
+	 * @return
+	 * @throws NullPointerException
+	 */
+	public DefaultOfficeManagerConfiguration setRejectionPolicy(RejectionPolicy rejectionPolicy)
+			throws NullPointerException {
+		checkArgumentNotNull("rejectionPolicy", rejectionPolicy);
+		this.rejectionPolicy = rejectionPolicy;
+		return this;
+	}
+
+	/**
+	 * With {@link RejectionPolicy#CALLER_BLOCKS}, how long a caller waits for
+	 * room in a full queue before its task is rejected. Defaults to 5 seconds.
+	 * 
+	 * @param admissionTimeout
+	 *            in milliseconds
+	 * @return
+	 */
+	public DefaultOfficeManagerConfiguration setAdmissionTimeout(long admissionTimeout) {
+		this.admissionTimeout = admissionTimeout;
+		return this;
+	}
+
+	/**
+	 * Sets the share of the office processes a tenant (see
+	 * {@link OfficeTask#getTenant()}) gets while several tenants have tasks
+	 * queued: a tenant with weight 2 is served twice as often as one with the
+	 * default weight of 1.
+	 * 
+	 * @param tenant
+	 * @param weight
+	 * @return
+	 * @throws NullPointerException
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setTenantWeight(String tenant, int weight)
+			throws NullPointerException, IllegalArgumentException {
+		checkArgumentNotNull("tenant", tenant);
+		checkArgument("weight", weight > 0, "must be positive");
+		tenantWeights.put(tenant, Integer.valueOf(weight));
+		return this;
+	}
+
+	/**
+	 * Limits how many tasks of a tenant may run at the same time, even if
+	 * more office processes are idle. Unlimited by default.
+	 * 
+	 * @param tenant
+	 * @param concurrencyLimit
+	 *            a positive number, or zero for no limit
+	 * @return
+	 * @throws NullPointerException
+	 * @throws IllegalArgumentException
+	 */
+	public DefaultOfficeManagerConfiguration setTenantConcurrencyLimit(String tenant, int concurrencyLimit)
+			throws NullPointerException, IllegalArgumentException {
+		checkArgumentNotNull("tenant", tenant);
+		checkArgument("concurrencyLimit", concurrencyLimit >= 0, "must not be negative");
+		tenantConcurrencyLimits.put(tenant, Integer.valueOf(concurrencyLimit));
+		return this;
+	}
+
 	public OfficeManager buildOfficeManager() throws IllegalStateException {
 		if (officeHome == null) {
 			officeHome = OfficeUtils.getDefaultOfficeHome();
@@ -199,14 +743,71 @@ public class DefaultOfficeManagerConfiguration {
 			processManager = findBestProcessManager();
 		}
 
-		int numInstances = connectionProtocol == OfficeConnectionProtocol.PIPE ? pipeNames.length : portNumbers.length;
-		UnoUrl[] unoUrls = new UnoUrl[numInstances];
-		for (int i = 0; i < numInstances; i++) {
+		int numUrls = connectionProtocol == OfficeConnectionProtocol.PIPE ? pipeNames.length : portNumbers.length;
+		String urlKind = connectionProtocol == OfficeConnectionProtocol.PIPE ? "pipe names" : "port numbers";
+		int numInstances = maxInstances > 0 ? maxInstances : numUrls - standbyInstances;
+		if (maxInstances <= 0 && numInstances <= 0) {
+			throw new IllegalStateException("standbyInstances (" + standbyInstances + ") leaves none of the "
+					+ numUrls + " " + urlKind + " for active instances");
+		}
+		if (numInstances + standbyInstances > numUrls) {
+			throw new IllegalStateException("maxInstances (" + numInstances + ") plus standbyInstances ("
+					+ standbyInstances + ") exceeds the number of " + urlKind + " (" + numUrls + ")");
+		}
+		if (minInstances > numInstances) {
+			throw new IllegalStateException("minInstances (" + minInstances + ") exceeds maxInstances ("
+					+ numInstances + ")");
+		}
+		UnoUrl[] unoUrls = new UnoUrl[numInstances + standbyInstances];
+		for (int i = 0; i < unoUrls.length; i++) {
 			unoUrls[i] = (connectionProtocol == OfficeConnectionProtocol.PIPE) ? UnoUrl.pipe(pipeNames[i])
 					: UnoUrl.socket(portNumbers[i]);
 		}
-		return new ProcessPoolOfficeManager(officeHome, unoUrls, runAsArgs, templateProfileDir, workDir, retryTimeout,
-				taskQueueTimeout, taskExecutionTimeout, maxTasksPerProcess, processManager);
+		ProcessPoolOfficeManagerSettings settings = new ProcessPoolOfficeManagerSettings(unoUrls);
+		settings.setStandbyInstances(standbyInstances);
+		settings.setStartupQuorum(startupQuorum);
+		settings.setOfficeHome(officeHome);
+		settings.setRunAsArgs(runAsArgs);
+		settings.setTemplateProfileDir(templateProfileDir);
+		settings.setWorkDir(workDir);
+		settings.setRetryTimeout(retryTimeout);
+		settings.setTaskQueueTimeout(taskQueueTimeout);
+		for (Map.Entry<TaskPriority, Long> entry : laneQueueTimeouts.entrySet()) {
+			settings.setTaskQueueTimeout(entry.getKey(), entry.getValue().longValue());
+		}
+		settings.setPriorityAgingInterval(priorityAgingInterval);
+		settings.setTaskExecutionTimeout(taskExecutionTimeout);
+		settings.setAdaptiveTimeoutPercentile(adaptiveTimeoutPercentile);
+		settings.setAdaptiveTimeoutFactor(adaptiveTimeoutFactor);
+		settings.setMinTaskExecutionTimeout(minTaskExecutionTimeout);
+		settings.setMaxTaskExecutionTimeout(maxTaskExecutionTimeout);
+		settings.setMaxTasksPerProcess(maxTasksPerProcess);
+		settings.setMaxResidentMemory(maxResidentMemory);
+		settings.setMaxCpuTime(maxCpuTime);
+		settings.setRecycleJitter(recycleJitter);
+		settings.setMaxConcurrentRestarts(maxConcurrentRestarts);
+		settings.setProcessManager(processManager);
+		settings.setDispatchPolicy(dispatchPolicy);
+		settings.setAffinityRouting(affinityRouting);
+		settings.setVirtualThreads(virtualThreads);
+		settings.setHedgingPercentile(hedgingPercentile);
+		settings.setCircuitBreakerFailureRate(circuitBreakerFailureRate);
+		settings.setHealthCheckInterval(healthCheckInterval);
+		settings.setHealthCheckTimeout(healthCheckTimeout);
+		settings.setMinInstances(minInstances >= 0 ? minInstances : numInstances);
+		settings.setScaleUpQueueDepth(scaleUpQueueDepth);
+		settings.setScaleUpQueueWait(scaleUpQueueWait);
+		settings.setInstanceIdleTimeout(instanceIdleTimeout);
+		settings.setMaxQueuedTasks(maxQueuedTasks);
+		settings.setRejectionPolicy(rejectionPolicy);
+		settings.setAdmissionTimeout(admissionTimeout);
+		for (Map.Entry<String, Integer> entry : tenantWeights.entrySet()) {
+			settings.setTenantWeight(entry.getKey(), entry.getValue().intValue());
+		}
+		for (Map.Entry<String, Integer> entry : tenantConcurrencyLimits.entrySet()) {
+			settings.setTenantConcurrencyLimit(entry.getKey(), entry.getValue().intValue());
+		}
+		return new ProcessPoolOfficeManager(settings);
 	}
 
 	private ProcessManager findBestProcessManager() {
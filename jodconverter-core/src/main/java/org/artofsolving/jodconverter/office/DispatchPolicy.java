@@ -0,0 +1,91 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.Collection;
+
+/**
+ * Decides which idle office instance of a process pool receives the next
+ * {@link OfficeTask}.
+ * <p>
+ * Whatever the policy, instances that are disconnected or that will have to
+ * restart before running their next task (because they reached
+ * <em>maxTasksPerProcess</em> or a resource limit) are only chosen if no other
+ * instance is idle.
+ */
+public enum DispatchPolicy {
+
+    /**
+     * Picks the idle instance that was dispatched to least recently, so that
+     * work rotates evenly across the pool.
+     */
+    ROUND_ROBIN {
+        @Override
+        int compare(PooledOfficeManager first, PooledOfficeManager second) {
+            return Long.compare(first.getDispatchSequence(), second.getDispatchSequence());
+        }
+    },
+
+    /**
+     * Picks the idle instance that has executed the fewest tasks since it was
+     * last (re)started, i.e. the one furthest away from its next restart.
+     */
+    LEAST_LOADED {
+        @Override
+        int compare(PooledOfficeManager first, PooledOfficeManager second) {
+            return first.getTaskCount() - second.getTaskCount();
+        }
+    },
+
+    /**
+     * Picks the idle instance whose last (re)start is the oldest, so that
+     * freshly started instances, which are typically slower on their first
+     * documents, are kept in reserve.
+     */
+    LEAST_RECENTLY_RESTARTED {
+        @Override
+        int compare(PooledOfficeManager first, PooledOfficeManager second) {
+            return Long.compare(first.getLastRestartTime(), second.getLastRestartTime());
+        }
+    };
+
+    abstract int compare(PooledOfficeManager first, PooledOfficeManager second);
+
+    PooledOfficeManager select(Collection<PooledOfficeManager> candidates) {
+        PooledOfficeManager selected = null;
+        for (PooledOfficeManager candidate : candidates) {
+            if (selected == null || isPreferred(candidate, selected)) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    private boolean isPreferred(PooledOfficeManager candidate, PooledOfficeManager selected) {
+        int candidatePenalty = getPenalty(candidate);
+        int selectedPenalty = getPenalty(selected);
+        if (candidatePenalty != selectedPenalty) {
+            return candidatePenalty < selectedPenalty;
+        }
+        return compare(candidate, selected) < 0;
+    }
+
+    /**
+     * A disconnected instance is being restarted after a crash or a timeout,
+     * which is at least as slow as a restart due to <em>maxTasksPerProcess</em>.
+     */
+    private static int getPenalty(PooledOfficeManager manager) {
+        return (manager.isRunning() ? 0 : 2) + (manager.isRestartDue() ? 1 : 0);
+    }
+
+}
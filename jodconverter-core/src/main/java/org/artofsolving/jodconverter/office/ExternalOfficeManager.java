@@ -13,6 +13,7 @@
 package org.artofsolving.jodconverter.office;
 
 import java.net.ConnectException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * {@link OfficeManager} implementation that connects to an external Office process.
@@ -27,13 +28,14 @@ import java.net.ConnectException;
  * <p>
  * It will however auto-reconnect to the external process if the latter is manually restarted.
  * <p>
- * This {@link OfficeManager} implementation basically provides the same behaviour as JODConverter 2.x, including using <em>synchronized</em> blocks for serialising office
- * operations.
+ * This {@link OfficeManager} implementation basically provides the same behaviour as JODConverter 2.x, including serialising office operations, though with a
+ * {@link ReentrantLock} rather than <em>synchronized</em> blocks so that waiting callers do not pin the carrier threads of virtual threads.
  */
 class ExternalOfficeManager implements OfficeManager {
 
 	private final OfficeConnection connection;
 	private final boolean connectOnStart;
+	private final ReentrantLock connectionLock = new ReentrantLock();
 
 	/**
 	 * @param unoUrl
@@ -48,26 +50,35 @@ class ExternalOfficeManager implements OfficeManager {
 
 	public void start() throws OfficeException {
 		if (connectOnStart) {
-			synchronized (connection) {
+			connectionLock.lock();
+			try {
 				connect();
+			} finally {
+				connectionLock.unlock();
 			}
 		}
 	}
 
 	public void stop() {
-		synchronized (connection) {
+		connectionLock.lock();
+		try {
 			if (connection.isConnected()) {
 				connection.disconnect();
 			}
+		} finally {
+			connectionLock.unlock();
 		}
 	}
 
 	public void execute(OfficeTask task) throws OfficeException {
-		synchronized (connection) {
+		connectionLock.lock();
+		try {
 			if (!connection.isConnected()) {
 				connect();
 			}
 			task.execute(connection);
+		} finally {
+			connectionLock.unlock();
 		}
 	}
 
@@ -0,0 +1,47 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * An {@link OfficeTask} that can be run as several independent attempts, each
+ * writing its output to a location of its own, so that a pool with hedging
+ * enabled can start a second attempt on another office process when the
+ * first one is slow, and keep whichever finishes first.
+ */
+public interface HedgeableTask extends OfficeTask {
+
+    /**
+     * @return a copy of this task that writes its output to a temporary
+     *         location
+     */
+    HedgeableTask createAttempt();
+
+    /**
+     * Moves the output of the successful attempt into place.
+     * 
+     * @param attempt
+     *            created by {@link #createAttempt()}
+     * @throws OfficeException
+     */
+    void commitAttempt(HedgeableTask attempt) throws OfficeException;
+
+    /**
+     * Deletes whatever output a failed, cancelled or superseded attempt may
+     * have written.
+     * 
+     * @param attempt
+     *            created by {@link #createAttempt()}
+     */
+    void discardAttempt(HedgeableTask attempt);
+
+}
@@ -0,0 +1,125 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The attempts of one {@link HedgeableTask} run by a
+ * {@link ProcessPoolOfficeManager}: the first attempt to succeed is committed
+ * and completes the result, the other one is cancelled and discarded. The
+ * result only fails if every attempt that was started failed.
+ */
+class HedgedExecution {
+
+    private final HedgeableTask task;
+    private final CompletableFuture<Void> result = new CompletableFuture<Void>();
+
+    private CompletableFuture<Void> primary;
+    private CompletableFuture<Void> hedge;
+    private int pendingAttempts = 0;
+
+    public HedgedExecution(HedgeableTask task) {
+        this.task = task;
+    }
+
+    public HedgeableTask getTask() {
+        return task;
+    }
+
+    public CompletableFuture<Void> getResult() {
+        return result;
+    }
+
+    public synchronized void setPrimary(CompletableFuture<Void> primary) {
+        this.primary = primary;
+        pendingAttempts++;
+    }
+
+    public synchronized boolean isHedgeNeeded() {
+        return hedge == null && !result.isDone();
+    }
+
+    public void setHedge(CompletableFuture<Void> hedge) {
+        boolean superseded;
+        synchronized (this) {
+            this.hedge = hedge;
+            pendingAttempts++;
+            superseded = result.isDone();
+        }
+        if (superseded) {
+            hedge.cancel(true);
+        }
+    }
+
+    /**
+     * @return whether the hedge was started
+     */
+    public synchronized boolean isHedged() {
+        return hedge != null;
+    }
+
+    public void attemptCompleted(HedgeableTask attempt, Throwable throwable) {
+        CompletableFuture<Void> loser = null;
+        boolean discard = false;
+        Throwable failure = null;
+        synchronized (this) {
+            pendingAttempts--;
+            if (result.isDone()) {
+                discard = true;
+            } else if (throwable == null) {
+                try {
+                    task.commitAttempt(attempt);
+                    result.complete(null);
+                } catch (OfficeException officeException) {
+                    result.completeExceptionally(officeException);
+                }
+                loser = primary != null && !primary.isDone() ? primary : hedge;
+            } else {
+                discard = true;
+                if (pendingAttempts == 0) {
+                    failure = throwable;
+                }
+            }
+        }
+        if (discard) {
+            task.discardAttempt(attempt);
+        }
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        }
+        if (loser != null && !loser.isDone()) {
+            loser.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels every attempt still running, e.g. because the result itself was
+     * cancelled.
+     */
+    public void cancelAttempts() {
+        CompletableFuture<Void> primaryAttempt;
+        CompletableFuture<Void> hedgeAttempt;
+        synchronized (this) {
+            primaryAttempt = primary;
+            hedgeAttempt = hedge;
+        }
+        if (primaryAttempt != null) {
+            primaryAttempt.cancel(true);
+        }
+        if (hedgeAttempt != null) {
+            hedgeAttempt.cancel(true);
+        }
+    }
+
+}
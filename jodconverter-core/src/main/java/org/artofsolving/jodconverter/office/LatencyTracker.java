@@ -0,0 +1,67 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the execution times of the most recent tasks, per key such as
+ * {@link OfficeTask#getLatencyClass()}, to tell when a running task has
+ * become unusually slow.
+ */
+class LatencyTracker {
+
+    static final int WINDOW_SIZE = 100;
+    static final int MIN_SAMPLES = 20;
+
+    private static final String NO_KEY = "";
+
+    private final Map<String, long[]> windows = new HashMap<String, long[]>();
+    private final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+    public synchronized void record(String latencyClass, long executionNanos) {
+        String key = latencyClass != null ? latencyClass : NO_KEY;
+        long[] window = windows.get(key);
+        if (window == null) {
+            window = new long[WINDOW_SIZE];
+            windows.put(key, window);
+        }
+        Integer count = counts.get(key);
+        int recorded = count != null ? count.intValue() : 0;
+        window[recorded % WINDOW_SIZE] = executionNanos;
+        counts.put(key, Integer.valueOf(recorded + 1));
+    }
+
+    /**
+     * @param percentile
+     *            between 0 and 1
+     * @return the execution time, in nanoseconds, that the given fraction of
+     *         recent tasks with the same key completed within, or -1 if too
+     *         few such tasks have completed yet
+     */
+    public synchronized long getPercentile(String latencyClass, double percentile) {
+        String key = latencyClass != null ? latencyClass : NO_KEY;
+        Integer count = counts.get(key);
+        if (count == null || count.intValue() < MIN_SAMPLES) {
+            return -1L;
+        }
+        int size = Math.min(count.intValue(), WINDOW_SIZE);
+        long[] samples = Arrays.copyOf(windows.get(key), size);
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return samples[Math.max(0, Math.min(index, size - 1))];
+    }
+
+}
@@ -12,6 +12,7 @@
 //
 package org.artofsolving.jodconverter.office;
 
+import java.io.IOException;
 import java.net.ConnectException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -19,6 +20,8 @@ import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.artofsolving.jodconverter.process.ProcessUsage;
+
 import com.sun.star.frame.XDesktop;
 import com.sun.star.lang.DisposedException;
 
@@ -31,7 +34,7 @@ class ManagedOfficeProcess {
 	private final OfficeProcess process;
 	private final OfficeConnection connection;
 
-	private ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("OfficeProcessThread"));
+	private final ExecutorService executor;
 
 	private final Logger logger = Logger.getLogger(getClass().getName());
 
@@ -40,12 +43,27 @@ class ManagedOfficeProcess {
 		process = new OfficeProcess(settings.getOfficeHome(), settings.getUnoUrl(), settings.getRunAsArgs(), settings.getTemplateProfileDir(), settings.getWorkDir(), settings
 				.getProcessManager());
 		connection = new OfficeConnection(settings.getUnoUrl());
+		executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("OfficeProcessThread", true, settings
+				.isVirtualThreads()));
 	}
 
 	public OfficeConnection getConnection() {
 		return connection;
 	}
 
+	/**
+	 * @return the current resource usage of the office process, or
+	 *         <code>null</code> if unknown
+	 */
+	public ProcessUsage getUsage() {
+		try {
+			return process.getUsage();
+		} catch (IOException ioException) {
+			logger.log(Level.FINE, "could not sample process usage", ioException);
+			return null;
+		}
+	}
+
 	public void startAndWait() throws OfficeException {
 		Future<?> future = executor.submit(new Runnable() {
 			public void run() {
@@ -54,6 +72,9 @@ class ManagedOfficeProcess {
 		});
 		try {
 			future.get();
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
 		} catch (Exception exception) {
 			throw new OfficeException("failed to start and connect", exception);
 		}
@@ -67,6 +88,9 @@ class ManagedOfficeProcess {
 		});
 		try {
 			future.get();
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
 		} catch (Exception exception) {
 			throw new OfficeException("failed to start and connect", exception);
 		}
@@ -81,6 +105,31 @@ class ManagedOfficeProcess {
 		});
 		try {
 			future.get();
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
+		} catch (Exception exception) {
+			throw new OfficeException("failed to restart", exception);
+		}
+	}
+
+	/**
+	 * Like {@link #restartAndWait()} but also throws away the instance
+	 * profile, in case the profile is what makes the process misbehave.
+	 */
+	public void restartWithFreshProfileAndWait() {
+		Future<?> future = executor.submit(new Runnable() {
+			public void run() {
+				doStopProcess();
+				process.discardProfileDir();
+				doStartProcessAndConnect();
+			}
+		});
+		try {
+			future.get();
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
 		} catch (Exception exception) {
 			throw new OfficeException("failed to restart", exception);
 		}
@@ -95,6 +144,24 @@ class ManagedOfficeProcess {
 		});
 	}
 
+	public void restartDueToCancelledTask() {
+		executor.execute(new Runnable() {
+			public void run() {
+				doTerminateProcess();
+				// will cause unexpected disconnection and subsequent restart
+			}
+		});
+	}
+
+	public void restartDueToFailedHealthCheck() {
+		executor.execute(new Runnable() {
+			public void run() {
+				doTerminateProcess();
+				// will cause unexpected disconnection and subsequent restart
+			}
+		});
+	}
+
 	public void restartDueToLostConnection() {
 		executor.execute(new Runnable() {
 			public void run() {
@@ -132,6 +199,9 @@ class ManagedOfficeProcess {
 					}
 				}
 			}.execute(settings.getRetryInterval(), settings.getRetryTimeout());
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
 		} catch (Exception exception) {
 			throw new OfficeException("could not establish connection", exception);
 		}
@@ -29,6 +29,7 @@ class ManagedOfficeProcessSettings {
     private ProcessManager processManager = new PureJavaProcessManager();
     private long retryTimeout = DefaultOfficeManagerConfiguration.DEFAULT_RETRY_TIMEOUT;
     private long retryInterval = DEFAULT_RETRY_INTERVAL;
+    private boolean virtualThreads = false;
 
     public ManagedOfficeProcessSettings(UnoUrl unoUrl) {
         this.unoUrl = unoUrl;
@@ -102,4 +103,16 @@ class ManagedOfficeProcessSettings {
         this.retryInterval = retryInterval;
     }
 
+    /**
+     * @return whether to supervise the process, and run tasks, on virtual
+     *         threads where the Java runtime supports them
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
 }
@@ -0,0 +1,64 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.Map;
+
+/**
+ * An {@link OfficeManager} that exposes live statistics about how it is
+ * serving its tasks.
+ * <p>
+ * The {@link OfficeManager} returned by
+ * {@link DefaultOfficeManagerConfiguration#buildOfficeManager()} implements
+ * this interface.
+ */
+public interface MonitoredOfficeManager extends OfficeManager {
+
+    /**
+     * @return statistics per tenant, keyed by {@link OfficeTask#getTenant()},
+     *         for every tenant that has submitted a task so far
+     */
+    Map<String, TenantStatistics> getTenantStatistics();
+
+    /**
+     * @return the number of tasks currently waiting for an office process
+     */
+    int getQueuedTaskCount();
+
+    /**
+     * @return how long, in milliseconds, a task submitted now is expected to
+     *         wait for an office process, based on the current queue depth
+     *         and the average execution time of recent tasks
+     */
+    long getEstimatedQueueWait();
+
+    /**
+     * @return the number of tasks rejected or dropped because the queue was
+     *         full, see {@link RejectionPolicy}
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * @return the number of second attempts started for slow tasks, see
+     *         {@link HedgeableTask}
+     */
+    long getHedgedTaskCount();
+
+    /**
+     * @return the average round trip time, in microseconds, of recent health
+     *         checks of idle office processes, or zero if none has been run
+     *         yet or health checks are disabled
+     */
+    long getHealthCheckLatency();
+
+}
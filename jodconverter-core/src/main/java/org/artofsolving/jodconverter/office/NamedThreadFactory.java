@@ -12,32 +12,111 @@
 //
 package org.artofsolving.jodconverter.office;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 /**
  * A {@link ThreadFactory} that allows for custom thread names
+ * <p>
+ * Can create virtual threads instead of platform threads when running on a
+ * Java runtime that supports them (Java 21 or later); they are looked up
+ * reflectively so that this class still compiles and runs on Java 8.
  */
 class NamedThreadFactory implements ThreadFactory {
 
     private static final AtomicInteger threadIndex = new AtomicInteger(0);
 
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method UNSTARTED = findMethod(findClass("java.lang.Thread$Builder"), "unstarted", Runnable.class);
+    private static final boolean VIRTUAL_THREAD_SUPPORTED = checkVirtualThreadSupported();
+
+    private static final Logger logger = Logger.getLogger(NamedThreadFactory.class.getName());
+
     private final String baseName;
     private final boolean daemon;
+    private final boolean virtual;
 
     public NamedThreadFactory(String baseName) {
         this(baseName, true);
     }
 
     public NamedThreadFactory(String baseName, boolean daemon) {
+        this(baseName, daemon, false);
+    }
+
+    /**
+     * @param virtual
+     *            create virtual threads if supported, which are always daemon
+     *            threads; otherwise falls back to platform threads
+     */
+    public NamedThreadFactory(String baseName, boolean daemon, boolean virtual) {
         this.baseName = baseName;
         this.daemon = daemon;
+        this.virtual = virtual && isVirtualThreadSupported();
+        if (virtual && !this.virtual) {
+            logger.warning("virtual threads are not supported by this Java runtime; using platform threads for " + baseName);
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_SUPPORTED;
     }
 
     public Thread newThread(Runnable runnable) {
-        Thread thread = new Thread(runnable, baseName + "-" + threadIndex.getAndIncrement());
+        String name = baseName + "-" + threadIndex.getAndIncrement();
+        if (virtual) {
+            Thread thread = newVirtualThread(runnable);
+            thread.setName(name);
+            return thread;
+        }
+        Thread thread = new Thread(runnable, name);
         thread.setDaemon(daemon);
         return thread;
     }
 
+    private static Thread newVirtualThread(Runnable runnable) {
+        try {
+            return (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), runnable);
+        } catch (Exception exception) {
+            throw new IllegalStateException("could not create virtual thread", exception);
+        }
+    }
+
+    /**
+     * On Java 19 and 20 the API exists but is a preview feature that fails
+     * unless enabled.
+     */
+    private static boolean checkVirtualThreadSupported() {
+        if (OF_VIRTUAL == null || UNSTARTED == null) {
+            return false;
+        }
+        try {
+            OF_VIRTUAL.invoke(null);
+            return true;
+        } catch (Exception exception) {
+            return false;
+        }
+    }
+
+    private static Class<?> findClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException classNotFoundException) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String methodName, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(methodName, parameterTypes);
+        } catch (NoSuchMethodException noSuchMethodException) {
+            return null;
+        }
+    }
+
 }
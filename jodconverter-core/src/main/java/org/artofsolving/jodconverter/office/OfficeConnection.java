@@ -16,6 +16,7 @@ import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import com.sun.star.beans.XPropertySet;
@@ -45,6 +46,7 @@ public class OfficeConnection implements OfficeContext {
     private final List<OfficeConnectionEventListener> connectionEventListeners = new ArrayList<OfficeConnectionEventListener>();
 
     private volatile boolean connected = false;
+    private final ReentrantLock disconnectLock = new ReentrantLock();
 
     private XEventListener bridgeListener = new XEventListener() {
         public void disposing(EventObject event) {
@@ -104,9 +106,14 @@ public class OfficeConnection implements OfficeContext {
         return connected;
     }
 
-    public synchronized void disconnect() {
-        logger.fine(String.format("disconnecting: '%s'", unoUrl));
-        bridgeComponent.dispose();
+    public void disconnect() {
+        disconnectLock.lock();
+        try {
+            logger.fine(String.format("disconnecting: '%s'", unoUrl));
+            bridgeComponent.dispose();
+        } finally {
+            disconnectLock.unlock();
+        }
     }
 
     public Object getService(String serviceName) {
@@ -12,6 +12,8 @@
 //
 package org.artofsolving.jodconverter.office;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * An OfficeManager knows how to execute {@link OfficeTask}s.
  * <p>
@@ -22,6 +24,25 @@ public interface OfficeManager {
 
     void execute(OfficeTask task) throws OfficeException;
 
+    /**
+     * Executes the task without making the caller wait for it; failures,
+     * including queue and execution timeouts, complete the returned future
+     * exceptionally with an {@link OfficeException}.
+     * <p>
+     * The default implementation simply runs {@link #execute(OfficeTask)} in
+     * the calling thread.
+     */
+    default CompletableFuture<Void> executeAsync(OfficeTask task) {
+        CompletableFuture<Void> result = new CompletableFuture<Void>();
+        try {
+            execute(task);
+            result.complete(null);
+        } catch (OfficeException officeException) {
+            result.completeExceptionally(officeException);
+        }
+        return result;
+    }
+
     void start() throws OfficeException;
 
     void stop() throws OfficeException;
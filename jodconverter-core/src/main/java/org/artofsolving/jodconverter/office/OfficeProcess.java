@@ -26,6 +26,7 @@ import java.util.logging.Logger;
 import org.apache.commons.io.FileUtils;
 import org.artofsolving.jodconverter.process.ProcessManager;
 import org.artofsolving.jodconverter.process.ProcessQuery;
+import org.artofsolving.jodconverter.process.ProcessUsage;
 import org.artofsolving.jodconverter.util.PlatformUtils;
 
 class OfficeProcess {
@@ -222,6 +223,15 @@ class OfficeProcess {
 		}
 	}
 
+	/**
+	 * Deletes the instance profile dir even if profile dirs are being kept,
+	 * so that the next start begins afresh from the template profile.
+	 */
+	public void discardProfileDir() {
+		deleteProfDir = true;
+		deleteProfileDir();
+	}
+
 	public void deleteProfileDir() {
 		if (instanceProfileDir != null) {
 			try {
@@ -311,11 +321,26 @@ class OfficeProcess {
 			return retryable.getExitCode();
 		} catch (RetryTimeoutException retryTimeoutException) {
 			throw retryTimeoutException;
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
 		} catch (Exception exception) {
 			throw new OfficeException("could not get process exit code", exception);
 		}
 	}
 
+	/**
+	 * @return the current resource usage, or <code>null</code> if the pid or
+	 *         the usage cannot be determined
+	 * @throws IOException
+	 */
+	public ProcessUsage getUsage() throws IOException {
+		if (pid <= 0 || !isRunning()) {
+			return null;
+		}
+		return processManager.getUsage(pid);
+	}
+
 	public long findOfficeProcessId() throws IOException {
 		ProcessQuery processQuery = new ProcessQuery(executable.getName(), unoUrl.getAcceptString());
 		return processManager.findPid(processQuery);
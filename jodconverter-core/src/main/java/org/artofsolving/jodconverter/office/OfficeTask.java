@@ -14,6 +14,62 @@ package org.artofsolving.jodconverter.office;
 
 public interface OfficeTask {
 
+    /**
+     * The tenant of tasks that do not specify one.
+     */
+    String DEFAULT_TENANT = "default";
+
+    /**
+     * The deadline of tasks that do not have one.
+     */
+    long NO_DEADLINE = 0L;
+
     void execute(OfficeContext context) throws OfficeException;
 
+    /**
+     * @return the lane this task queues in when all office processes are
+     *         busy; {@link TaskPriority#NORMAL} unless overridden
+     */
+    default TaskPriority getPriority() {
+        return TaskPriority.NORMAL;
+    }
+
+    /**
+     * @return the customer or application this task is run for; a pool of
+     *         office processes is shared fairly between tenants.
+     *         {@link #DEFAULT_TENANT} unless overridden
+     */
+    default String getTenant() {
+        return DEFAULT_TENANT;
+    }
+
+    /**
+     * @return tasks with the same affinity key, e.g. the document family of
+     *         a conversion, preferably run on the same office processes when
+     *         affinity routing is enabled; <code>null</code> unless overridden
+     */
+    default String getAffinityKey() {
+        return null;
+    }
+
+    /**
+     * @return the time, as returned by {@link System#currentTimeMillis()},
+     *         after which nobody is waiting for the result of this task any
+     *         more: it is then no longer dispatched, and its execution timeout
+     *         is capped accordingly. {@link #NO_DEADLINE} unless overridden
+     */
+    default long getDeadline() {
+        return NO_DEADLINE;
+    }
+
+    /**
+     * @return tasks of the same latency class, e.g. conversions between the
+     *         same formats of documents of similar size, are expected to take
+     *         similar times; with adaptive timeouts, their execution timeout
+     *         is learned from those times. <code>null</code> unless overridden
+     */
+    default String getLatencyClass() {
+        return null;
+    }
+
 }
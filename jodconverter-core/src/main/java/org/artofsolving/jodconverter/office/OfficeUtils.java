@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.artofsolving.OfficeSoftware;
@@ -96,11 +97,13 @@ public class OfficeUtils {
 		propertyValue.Value = value;
 		propertyValue.Handle = -1;
 
-		String type = (propertyValue.State == PropertyState.DIRECT_VALUE) ? "DIRECT"
-				: (propertyValue.State == PropertyState.DEFAULT_VALUE ? "DEFAULT" : "AMBIGUOUS");
-		logger.fine("PropertyValue: " + propertyValue.Name + " " + //
-				propertyValue.Handle + " " + propertyValue.Value + //
-				" (" + propertyValue.Value.getClass() + ") " + type);
+		if (logger.isLoggable(Level.FINE)) {
+			String type = (propertyValue.State == PropertyState.DIRECT_VALUE) ? "DIRECT"
+					: (propertyValue.State == PropertyState.DEFAULT_VALUE ? "DEFAULT" : "AMBIGUOUS");
+			logger.fine("PropertyValue: " + propertyValue.Name + " " + //
+					propertyValue.Handle + " " + propertyValue.Value + //
+					" (" + propertyValue.Value.getClass() + ") " + type);
+		}
 
 		return propertyValue;
 	}
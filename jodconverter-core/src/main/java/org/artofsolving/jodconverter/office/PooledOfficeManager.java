@@ -13,28 +13,81 @@
 //
 package org.artofsolving.jodconverter.office;
 
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.logging.Logger;
 
+import org.artofsolving.jodconverter.process.ProcessUsage;
+
 class PooledOfficeManager implements OfficeManager {
 
+	/**
+	 * How long a cancelled task may keep running before its process is
+	 * restarted: UNO calls do not respond to interrupts, so a task that is
+	 * cancelled while loading or storing a document only notices once the
+	 * call returns.
+	 */
+	private static final long CANCELLATION_GRACE_PERIOD = 1000L;
+
+	// states of an execution
+	private static final int NEW = 0;
+	private static final int RUNNING = 1;
+	private static final int DONE = 2;
+	private static final int ABORTED = 3;
+
+	/**
+	 * Shared by all instances: watching for execution timeouts needs no thread
+	 * per running task.
+	 */
+	private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+			new NamedThreadFactory("OfficeTaskTimeoutThread"));
+
 	private final PooledOfficeManagerSettings settings;
 	private final ManagedOfficeProcess managedOfficeProcess;
 	private final SuspendableThreadPoolExecutor taskExecutor;
 
 	private volatile boolean stopping = false;
-	private int taskCount;
+	private volatile int taskCount;
+	private volatile int taskLimit;
+	private volatile ProcessUsage resourceLimitExceeded;
+	private final Set<String> affinityKeys = ConcurrentHashMap.newKeySet();
+	private volatile String lastAffinityKey;
+	private volatile long lastRestartTime;
+	private volatile long dispatchSequence;
+	private volatile long idleSince;
+	private CircuitBreaker circuitBreaker;
 	private Future<?> currentTask;
+	private volatile CompletableFuture<Void> pendingRelease;
 
 	private final Logger logger = Logger.getLogger(getClass().getName());
 
 	private OfficeConnectionEventListener connectionEventListener = new OfficeConnectionEventListener() {
 		public void connected(OfficeConnectionEvent event) {
 			taskCount = 0;
+			taskLimit = settings.getRecycleCoordinator().nextTaskLimit(settings.getMaxTasksPerProcess());
+			resourceLimitExceeded = null;
+			affinityKeys.clear();
+			lastAffinityKey = null;
+			lastRestartTime = System.currentTimeMillis();
 			taskExecutor.setAvailable(true);
+			CompletableFuture<Void> released = pendingRelease;
+			if (released != null) {
+				pendingRelease = null;
+				released.complete(null);
+			}
 		}
 
 		public void disconnected(OfficeConnectionEvent event) {
@@ -60,47 +113,264 @@ class PooledOfficeManager implements OfficeManager {
 		this.settings = settings;
 		managedOfficeProcess = new ManagedOfficeProcess(settings);
 		managedOfficeProcess.getConnection().addConnectionEventListener(connectionEventListener);
-		taskExecutor = new SuspendableThreadPoolExecutor(new NamedThreadFactory("OfficeTaskThread"));
+		taskExecutor = new SuspendableThreadPoolExecutor(new NamedThreadFactory("OfficeTaskThread", true, settings
+				.isVirtualThreads()));
+		taskLimit = settings.getRecycleCoordinator().nextTaskLimit(settings.getMaxTasksPerProcess());
 	}
 
 	public void execute(final OfficeTask task) throws OfficeException {
-		Future<?> futureTask = taskExecutor.submit(new Runnable() {
-			public void run() {
-				if (settings.getMaxTasksPerProcess() > 0 && ++taskCount == settings.getMaxTasksPerProcess() + 1) {
-					logger.info(String.format("reached limit of %d maxTasksPerProcess: restarting",
-							settings.getMaxTasksPerProcess()));
-					taskExecutor.setAvailable(false);
-					stopping = true;
-					managedOfficeProcess.restartAndWait();
-					// FIXME taskCount will be 0 rather than 1 at this point
-				}
-				task.execute(managedOfficeProcess.getConnection());
-			}
-		});
-		currentTask = futureTask;
-		long taskExecutionTimeout = settings.getTaskExecutionTimeout();
-
 		try {
-			futureTask.get(taskExecutionTimeout, TimeUnit.MILLISECONDS);
-		} catch (TimeoutException timeoutException) {
-			managedOfficeProcess.restartDueToTaskTimeout();
-			throw new OfficeException("task did not complete within timeout (" + (taskExecutionTimeout / 1000.0) + "s)",
-					timeoutException);
+			executeAsync(task).get();
 		} catch (ExecutionException executionException) {
 			if (executionException.getCause() instanceof OfficeException) {
 				throw (OfficeException) executionException.getCause();
 			} else {
 				throw new OfficeException("task failed", executionException.getCause());
 			}
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new OfficeException("interrupted", interruptedException);
 		} catch (Exception exception) {
 			throw new OfficeException("task failed", exception);
 		}
 	}
 
+	/**
+	 * Cancelling the returned future interrupts the task; if it is still
+	 * running after {@link #CANCELLATION_GRACE_PERIOD}, the office process is
+	 * restarted to abort it.
+	 */
+	@Override
+	public CompletableFuture<Void> executeAsync(OfficeTask task) {
+		return executeAsync(task, new CompletableFuture<Void>());
+	}
+
+	/**
+	 * Like {@link #executeAsync(OfficeTask)}, but also tells when this manager
+	 * can take its next task. That may be later than the task's future is
+	 * completed: a task that is cancelled or times out may still be inside a
+	 * UNO call, and if the process has to be restarted to abort it, the next
+	 * task must not be handed the restart, nor the lost connection that goes
+	 * with it.
+	 * 
+	 * @param released
+	 *            completed once the task has returned, or the process
+	 *            restarted to abort it has been reconnected
+	 */
+	CompletableFuture<Void> executeAsync(final OfficeTask task, final CompletableFuture<Void> released) {
+		final CompletableFuture<Void> result = new CompletableFuture<Void>();
+		final TimeoutEstimator timeoutEstimator = settings.getTimeoutEstimator();
+		long taskTimeout = settings.getTaskExecutionTimeout();
+		boolean shortenedByDeadline = false;
+		if (timeoutEstimator != null) {
+			taskTimeout = timeoutEstimator.getTimeout(task.getLatencyClass(), taskTimeout);
+		}
+		if (task.getDeadline() != OfficeTask.NO_DEADLINE) {
+			long remaining = task.getDeadline() - System.currentTimeMillis();
+			if (remaining <= 0L) {
+				result.completeExceptionally(new OfficeException("task deadline expired"));
+				released.complete(null);
+				return result;
+			}
+			if (remaining < taskTimeout) {
+				taskTimeout = remaining;
+				shortenedByDeadline = true;
+			}
+		}
+		final long taskExecutionTimeout = taskTimeout;
+		final boolean expiresAtDeadline = shortenedByDeadline;
+		final AtomicInteger state = new AtomicInteger(NEW);
+		FutureTask<Void> futureTask = new FutureTask<Void>(new Runnable() {
+			public void run() {
+				if (state.get() != NEW) {
+					// timed out before it started
+					return;
+				}
+				try {
+					recycleIfDue(task);
+				} catch (RuntimeException runtimeException) {
+					if (state.compareAndSet(NEW, DONE)) {
+						released.complete(null);
+					}
+					throw runtimeException;
+				}
+				if (!state.compareAndSet(NEW, RUNNING)) {
+					// cancelled or timed out while the process restarted
+					return;
+				}
+				try {
+					task.execute(managedOfficeProcess.getConnection());
+				} finally {
+					checkResourceUsage();
+					if (state.compareAndSet(RUNNING, DONE)) {
+						released.complete(null);
+					}
+				}
+			}
+		}, null) {
+			@Override
+			protected void done() {
+				try {
+					get();
+					result.complete(null);
+				} catch (ExecutionException executionException) {
+					if (executionException.getCause() instanceof OfficeException) {
+						result.completeExceptionally(executionException.getCause());
+					} else {
+						result.completeExceptionally(new OfficeException("task failed", executionException.getCause()));
+					}
+				} catch (CancellationException cancellationException) {
+					// unless the caller cancelled, in which case result is already done
+					result.completeExceptionally(new TaskAbortedException("office process connection lost",
+							cancellationException));
+				} catch (Exception exception) {
+					result.completeExceptionally(new OfficeException("task failed", exception));
+				}
+			}
+		};
+		currentTask = futureTask;
+		try {
+			taskExecutor.execute(futureTask);
+		} catch (RejectedExecutionException rejectedExecutionException) {
+			result.completeExceptionally(new OfficeException("task failed", rejectedExecutionException));
+			released.complete(null);
+			return result;
+		}
+
+		final ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(new Runnable() {
+			public void run() {
+				String message = "task did not complete within timeout (" + (taskExecutionTimeout / 1000.0) + "s)";
+				OfficeException timeoutException;
+				if (expiresAtDeadline) {
+					// the task may simply have been slow; an adaptive timeout,
+					// several times the usual execution time, is a hang
+					timeoutException = new TaskExpiredException(message, new TimeoutException());
+				} else {
+					timeoutException = new TaskAbortedException(message, new TimeoutException());
+				}
+				if (result.completeExceptionally(timeoutException)) {
+					if (state.compareAndSet(NEW, DONE)) {
+						released.complete(null);
+					} else if (state.compareAndSet(RUNNING, ABORTED)) {
+						if (timeoutEstimator != null) {
+							// took at least that long, or the learned timeout
+							// could only ever shrink
+							timeoutEstimator.record(task.getLatencyClass(),
+									TimeUnit.MILLISECONDS.toNanos(taskExecutionTimeout));
+						}
+						pendingRelease = released;
+						managedOfficeProcess.restartDueToTaskTimeout();
+					}
+				}
+			}
+		}, taskExecutionTimeout, TimeUnit.MILLISECONDS);
+		final Future<?> execution = futureTask;
+		result.whenComplete(new BiConsumer<Void, Throwable>() {
+			public void accept(Void ignored, Throwable throwable) {
+				timeout.cancel(false);
+				if (result.isCancelled()) {
+					execution.cancel(true);
+					if (state.compareAndSet(NEW, DONE)) {
+						released.complete(null);
+					} else {
+						scheduleCancellationCheck(state, released);
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Restarts the process before the task if its task limit or a resource
+	 * limit has been reached.
+	 */
+	private void recycleIfDue(OfficeTask task) {
+		RecycleCoordinator recycleCoordinator = settings.getRecycleCoordinator();
+		// probes neither count towards nor trigger a recycle
+		boolean taskLimitReached = !(task instanceof ProbeTask) && taskLimit > 0 && ++taskCount > taskLimit;
+		ProcessUsage exceededUsage = resourceLimitExceeded;
+		if ((taskLimitReached || (exceededUsage != null && !(task instanceof ProbeTask)))
+				&& recycleCoordinator.tryBeginRestart()) {
+			if (exceededUsage != null) {
+				logger.info(String.format("resource limit exceeded (%s): restarting", exceededUsage));
+			} else {
+				logger.info(String.format("reached limit of %d tasks (maxTasksPerProcess %d): restarting",
+						taskLimit, settings.getMaxTasksPerProcess()));
+			}
+			taskExecutor.setAvailable(false);
+			stopping = true;
+			try {
+				managedOfficeProcess.restartAndWait();
+			} finally {
+				recycleCoordinator.endRestart();
+			}
+			// FIXME taskCount will be 0 rather than 1 at this point
+		}
+	}
+
+	/**
+	 * Restarts the process if the cancelled task is still running after the
+	 * grace period; the manager is then released only once the process has
+	 * been reconnected.
+	 */
+	private void scheduleCancellationCheck(final AtomicInteger state, final CompletableFuture<Void> released) {
+		TIMEOUT_SCHEDULER.schedule(new Runnable() {
+			public void run() {
+				if (state.compareAndSet(RUNNING, ABORTED)) {
+					logger.warning("cancelled task is still running; restarting process");
+					pendingRelease = released;
+					managedOfficeProcess.restartDueToCancelledTask();
+				}
+			}
+		}, CANCELLATION_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Samples the process between tasks, so that a process that grew too big
+	 * is restarted before its next task rather than in the middle of one.
+	 */
+	private void checkResourceUsage() {
+		long maxResidentMemory = settings.getMaxResidentMemory();
+		long maxCpuTime = settings.getMaxCpuTime();
+		if ((maxResidentMemory <= 0L && maxCpuTime <= 0L) || resourceLimitExceeded != null) {
+			return;
+		}
+		ProcessUsage usage = managedOfficeProcess.getUsage();
+		if (usage != null && ((maxResidentMemory > 0L && usage.getResidentMemory() > maxResidentMemory)
+				|| (maxCpuTime > 0L && usage.getCpuTime() > maxCpuTime))) {
+			resourceLimitExceeded = usage;
+		}
+	}
+
 	public void start() throws OfficeException {
 		managedOfficeProcess.startAndWait();
 	}
 
+	/**
+	 * Restarts the process with a fresh profile and checks that it answers a
+	 * trivial UNO call.
+	 */
+	void recycleAndProbe() throws OfficeException {
+		taskExecutor.setAvailable(false);
+		stopping = true;
+		managedOfficeProcess.restartWithFreshProfileAndWait();
+		execute(new ProbeTask());
+	}
+
+	/**
+	 * Restarts a process that failed a health check.
+	 * 
+	 * @return completed once the process has been reconnected
+	 */
+	CompletableFuture<Void> restartDueToFailedHealthCheck() {
+		CompletableFuture<Void> restarted = new CompletableFuture<Void>();
+		taskExecutor.setAvailable(false);
+		pendingRelease = restarted;
+		managedOfficeProcess.restartDueToFailedHealthCheck();
+		return restarted;
+	}
+
 	public void stop() throws OfficeException {
 		taskExecutor.setAvailable(false);
 		stopping = true;
@@ -112,4 +382,76 @@ class PooledOfficeManager implements OfficeManager {
 		return managedOfficeProcess.isConnected();
 	}
 
+	UnoUrl getUnoUrl() {
+		return settings.getUnoUrl();
+	}
+
+	int getTaskCount() {
+		return taskCount;
+	}
+
+	/**
+	 * @return whether the next task may first have to wait for the process to
+	 *         restart because its task limit or a resource limit has been
+	 *         reached
+	 */
+	boolean isRestartDue() {
+		return (taskLimit > 0 && taskCount >= taskLimit) || resourceLimitExceeded != null;
+	}
+
+	long getLastRestartTime() {
+		return lastRestartTime;
+	}
+
+	long getDispatchSequence() {
+		return dispatchSequence;
+	}
+
+	void setDispatchSequence(long dispatchSequence) {
+		this.dispatchSequence = dispatchSequence;
+	}
+
+	long getIdleSince() {
+		return idleSince;
+	}
+
+	void setIdleSince(long idleSince) {
+		this.idleSince = idleSince;
+	}
+
+	/**
+	 * @return the circuit breaker of this instance, or <code>null</code> if
+	 *         the pool does not use any
+	 */
+	CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * @return how well this instance suits a task with the given
+	 *         {@link OfficeTask#getAffinityKey()}, higher being better: 3 if its
+	 *         last task had the same key, 2 if it ran such a task since it was
+	 *         (re)started, 1 if it has not run any task with a key yet, and 0
+	 *         otherwise
+	 */
+	int getAffinity(String affinityKey) {
+		if (affinityKey.equals(lastAffinityKey)) {
+			return 3;
+		} else if (affinityKeys.contains(affinityKey)) {
+			return 2;
+		} else if (affinityKeys.isEmpty()) {
+			return 1;
+		}
+		return 0;
+	}
+
+	void recordAffinityKey(String affinityKey) {
+		affinityKeys.add(affinityKey);
+		lastAffinityKey = affinityKey;
+	}
+
 }
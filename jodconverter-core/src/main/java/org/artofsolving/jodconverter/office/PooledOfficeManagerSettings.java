@@ -19,6 +19,10 @@ class PooledOfficeManagerSettings extends ManagedOfficeProcessSettings {
 
     private long taskExecutionTimeout = DEFAULT_TASK_EXECUTION_TIMEOUT;
     private int maxTasksPerProcess = DEFAULT_MAX_TASKS_PER_PROCESS;
+    private long maxResidentMemory = 0L;
+    private long maxCpuTime = 0L;
+    private RecycleCoordinator recycleCoordinator = new RecycleCoordinator(0.0, 0);
+    private TimeoutEstimator timeoutEstimator = null;
 
     public PooledOfficeManagerSettings(UnoUrl unoUrl) {
         super(unoUrl);
@@ -40,4 +44,56 @@ class PooledOfficeManagerSettings extends ManagedOfficeProcessSettings {
         this.maxTasksPerProcess = maxTasksPerProcess;
     }
 
+    /**
+     * @return in bytes, or zero if the process is not recycled because of its
+     *         memory usage
+     */
+    public long getMaxResidentMemory() {
+        return maxResidentMemory;
+    }
+
+    public void setMaxResidentMemory(long maxResidentMemory) {
+        this.maxResidentMemory = maxResidentMemory;
+    }
+
+    /**
+     * @return in milliseconds, or zero if the process is not recycled because
+     *         of the CPU time it consumed
+     */
+    public long getMaxCpuTime() {
+        return maxCpuTime;
+    }
+
+    public void setMaxCpuTime(long maxCpuTime) {
+        this.maxCpuTime = maxCpuTime;
+    }
+
+    public RecycleCoordinator getRecycleCoordinator() {
+        return recycleCoordinator;
+    }
+
+    /**
+     * @param recycleCoordinator
+     *            shared by all instances of a pool
+     */
+    public void setRecycleCoordinator(RecycleCoordinator recycleCoordinator) {
+        this.recycleCoordinator = recycleCoordinator;
+    }
+
+    /**
+     * @return <code>null</code> if every task gets the fixed
+     *         <em>taskExecutionTimeout</em>
+     */
+    public TimeoutEstimator getTimeoutEstimator() {
+        return timeoutEstimator;
+    }
+
+    /**
+     * @param timeoutEstimator
+     *            shared by all instances of a pool
+     */
+    public void setTimeoutEstimator(TimeoutEstimator timeoutEstimator) {
+        this.timeoutEstimator = timeoutEstimator;
+    }
+
 }
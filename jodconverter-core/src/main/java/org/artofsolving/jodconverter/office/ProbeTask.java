@@ -0,0 +1,54 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.artofsolving.jodconverter.office.OfficeUtils.SERVICE_DESKTOP;
+import static org.artofsolving.jodconverter.office.OfficeUtils.cast;
+
+import com.sun.star.frame.XDesktop;
+
+/**
+ * A trivial round trip to an office process, to check that it accepts and
+ * answers UNO calls before it is given real work.
+ */
+class ProbeTask implements OfficeTask {
+
+    private final long deadline;
+
+    public ProbeTask() {
+        this(NO_DEADLINE);
+    }
+
+    /**
+     * @param deadline
+     *            after which the office process is deemed unresponsive and
+     *            restarted
+     */
+    public ProbeTask(long deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void execute(OfficeContext context) throws OfficeException {
+        XDesktop desktop = cast(XDesktop.class, context.getService(SERVICE_DESKTOP));
+        if (desktop == null) {
+            throw new OfficeException("probe failed: no desktop service");
+        }
+        desktop.getComponents();
+    }
+
+}
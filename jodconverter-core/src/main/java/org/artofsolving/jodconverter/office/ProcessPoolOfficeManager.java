@@ -12,94 +12,1288 @@
 //
 package org.artofsolving.jodconverter.office;
 
-import java.io.File;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.artofsolving.jodconverter.process.ProcessManager;
+/**
+ * {@link OfficeManager} that dispatches tasks to a pool of
+ * {@link PooledOfficeManager}s, one per configured {@link UnoUrl}.
+ * <p>
+ * When all processes are busy, tasks queue in the lane of their
+ * {@link TaskPriority}; a released process is handed to the queued task with
+ * the highest priority, after aging. Within a priority, tenants are served by
+ * start-time fair queueing according to their weights, skipping tenants that
+ * reached their concurrency limit, and each tenant's tasks in arrival order.
+ * <p>
+ * No thread is parked while a task waits or runs: queue timeouts are
+ * scheduled, and the completion of a task on one process hands that process
+ * straight over to the next queued task.
+ * <p>
+ * In elastic mode (fewer <em>minInstances</em> than configured URLs) only
+ * <em>minInstances</em> processes are started up front; further ones are
+ * started while tasks are queueing and retired again once they have been idle
+ * for <em>instanceIdleTimeout</em>.
+ * <p>
+ * With <em>standbyInstances</em>, that many processes are kept started but
+ * out of the rotation. An instance due for a restart because of
+ * <em>maxTasksPerProcess</em> is then swapped for a standby one when it is
+ * released, and stopped and replaced in the background.
+ * <p>
+ * With a <em>circuitBreakerFailureRate</em>, an instance that aborts too many
+ * of its recent tasks (by timing out or losing its connection) is
+ * quarantined: taken out of the rotation, restarted with a fresh profile and
+ * given work again only once it answers a probe. Unless a standby instance
+ * takes its place, at most half of the pool, and never its last active
+ * instance, is quarantined at a time.
+ * <p>
+ * With a <em>healthCheckInterval</em>, instances that have been idle that
+ * long are probed in the same way, and restarted if they fail to answer within
+ * the <em>healthCheckTimeout</em>; they are given work again only once
+ * restarted.
+ */
+class ProcessPoolOfficeManager implements MonitoredOfficeManager {
 
-class ProcessPoolOfficeManager implements OfficeManager {
+    private static final long MAINTENANCE_INTERVAL = 250L;
+    private static final double EXECUTION_TIME_SMOOTHING = 0.2;
+    private static final long QUARANTINE_RETRY_DELAY = 10000L;
+    private static final double MAX_QUARANTINED_FRACTION = 0.5;
+    private static final long TENANT_IDLE_TIMEOUT = 600000L;
+    private static final long TENANT_EVICTION_INTERVAL = 60000L;
 
-    private final BlockingQueue<PooledOfficeManager> pool;
-    private final PooledOfficeManager[] pooledManagers;
-    private final long taskQueueTimeout;
+    private final ProcessPoolOfficeManagerSettings settings;
+    private final RecycleCoordinator recycleCoordinator;
+    private final TimeoutEstimator timeoutEstimator;
+    private final List<PooledOfficeManager> idleManagers;
+    private final List<PooledOfficeManager> activeManagers;
+    private final List<PooledOfficeManager> standbyManagers;
+    private final List<PooledOfficeManager> quarantinedManagers = new ArrayList<PooledOfficeManager>();
+    private final Deque<UnoUrl> spareUnoUrls;
+    private final List<QueuedTask> queuedTasks = new LinkedList<QueuedTask>();
+    private final Map<String, TenantState> tenants = new HashMap<String, TenantState>();
+    private double poolVirtualTime = 0.0;
+    private long lastTenantEviction = System.currentTimeMillis();
+    private int startingCount = 0;
+    private int standbyStartingCount = 0;
+
+    private final ReentrantLock poolLock = new ReentrantLock();
+    private final Condition queueNotFull = poolLock.newCondition();
+    private long dispatchSequence = 0L;
+    private long rejectedCount = 0L;
+    private long hedgedCount = 0L;
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    private double averageExecutionNanos = 0.0;
+    private double averageHealthCheckNanos = 0.0;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService dispatchExecutor;
+    private ExecutorService scalingExecutor;
 
     private volatile boolean running = false;
 
     private final Logger logger = Logger.getLogger(ProcessPoolOfficeManager.class.getName());
 
-    public ProcessPoolOfficeManager(File officeHome, UnoUrl[] unoUrls, String[] runAsArgs, File templateProfileDir, File workDir,
-            long retryTimeout, long taskQueueTimeout, long taskExecutionTimeout, int maxTasksPerProcess,
-            ProcessManager processManager) {
-		this.taskQueueTimeout = taskQueueTimeout;
-        pool = new ArrayBlockingQueue<PooledOfficeManager>(unoUrls.length);
-        pooledManagers = new PooledOfficeManager[unoUrls.length];
-        for (int i = 0; i < unoUrls.length; i++) {
-            PooledOfficeManagerSettings settings = new PooledOfficeManagerSettings(unoUrls[i]);
-            settings.setRunAsArgs(runAsArgs);
-            settings.setTemplateProfileDir(templateProfileDir);
-            settings.setWorkDir(workDir);
-            settings.setOfficeHome(officeHome);
-            settings.setRetryTimeout(retryTimeout);
-            settings.setTaskExecutionTimeout(taskExecutionTimeout);
-            settings.setMaxTasksPerProcess(maxTasksPerProcess);
-            settings.setProcessManager(processManager);
-            pooledManagers[i] = new PooledOfficeManager(settings);
-        }
-        logger.info("ProcessManager implementation is " + processManager.getClass().getSimpleName());
+    public ProcessPoolOfficeManager(ProcessPoolOfficeManagerSettings settings) {
+        this.settings = settings;
+        recycleCoordinator = new RecycleCoordinator(settings.getRecycleJitter(), settings.getMaxConcurrentRestarts());
+        if (settings.getAdaptiveTimeoutPercentile() > 0.0) {
+            timeoutEstimator = new TimeoutEstimator(latencyTracker, settings.getAdaptiveTimeoutPercentile(),
+                    settings.getAdaptiveTimeoutFactor(), settings.getMinTaskExecutionTimeout(),
+                    settings.getMaxTaskExecutionTimeout());
+        } else {
+            timeoutEstimator = null;
+        }
+        int maxInstances = settings.getMaxInstances();
+        idleManagers = new ArrayList<PooledOfficeManager>(maxInstances);
+        activeManagers = new ArrayList<PooledOfficeManager>(maxInstances);
+        standbyManagers = new ArrayList<PooledOfficeManager>(settings.getStandbyInstances());
+        spareUnoUrls = new ArrayDeque<UnoUrl>(Arrays.asList(settings.getUnoUrls()));
+        logger.info("ProcessManager implementation is " + settings.getProcessManager().getClass().getSimpleName());
+        logger.info("DispatchPolicy is " + settings.getDispatchPolicy());
+        if (settings.isElastic()) {
+            logger.info(String.format("elastic pool of %d to %d instances", settings.getMinInstances(), maxInstances));
+        }
+        if (settings.getStandbyInstances() > 0) {
+            logger.info(String.format("keeping %d standby instances", settings.getStandbyInstances()));
+        }
     }
 
+    /**
+     * Starts <em>minInstances</em> office processes in parallel, and returns
+     * once <em>startupQuorum</em> of them are connected (all by default); the
+     * others keep starting in the background and join the pool when ready.
+     */
     public synchronized void start() throws OfficeException {
-        for (int i = 0; i < pooledManagers.length; i++) {
-            pooledManagers[i].start();
-            releaseManager(pooledManagers[i]);
-        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("OfficePoolSchedulerThread"));
+        boolean virtualThreads = settings.isVirtualThreads();
+        dispatchExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("OfficePoolDispatcherThread", true,
+                virtualThreads));
+        scalingExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("OfficePoolScalingThread", true,
+                virtualThreads));
         running = true;
+        int instances = settings.getMinInstances();
+        int quorum = settings.getStartupQuorum() > 0 ? Math.min(settings.getStartupQuorum(), instances) : instances;
+        CompletionService<PooledOfficeManager> startups = new ExecutorCompletionService<PooledOfficeManager>(
+                scalingExecutor);
+        poolLock.lock();
+        try {
+            for (int i = 0; i < instances; i++) {
+                final UnoUrl unoUrl = spareUnoUrls.poll();
+                startingCount++;
+                startups.submit(new Callable<PooledOfficeManager>() {
+                    public PooledOfficeManager call() throws OfficeException {
+                        return startAdditionalManager(unoUrl);
+                    }
+                });
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        try {
+            for (int started = 0; started < quorum; started++) {
+                startups.take().get();
+            }
+        } catch (ExecutionException executionException) {
+            stop();
+            if (executionException.getCause() instanceof OfficeException) {
+                throw (OfficeException) executionException.getCause();
+            }
+            throw new OfficeException("could not start instance", executionException.getCause());
+        } catch (InterruptedException interruptedException) {
+            stop();
+            Thread.currentThread().interrupt();
+            throw new OfficeException("interrupted", interruptedException);
+        }
+        if (quorum < instances) {
+            logger.info(String.format("%d of %d instances started; starting the others in the background", quorum,
+                    instances));
+        }
+        if (settings.isElastic() || settings.getStandbyInstances() > 0) {
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    maintainPool();
+                }
+            }, MAINTENANCE_INTERVAL, MAINTENANCE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        if (settings.getHealthCheckInterval() > 0L) {
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    checkIdleManagers();
+                }
+            }, settings.getHealthCheckInterval(), settings.getHealthCheckInterval(), TimeUnit.MILLISECONDS);
+        }
+        if (settings.getStandbyInstances() > 0) {
+            poolLock.lock();
+            try {
+                replenishStandby();
+            } finally {
+                poolLock.unlock();
+            }
+        }
     }
 
     public void execute(OfficeTask task) throws IllegalStateException, OfficeException {
+        CompletableFuture<Void> result = executeAsync(task);
+        try {
+            result.get();
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof OfficeException) {
+                throw (OfficeException) executionException.getCause();
+            } else {
+                throw new OfficeException("task failed", executionException.getCause());
+            }
+        } catch (InterruptedException interruptedException) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OfficeException("interrupted", interruptedException);
+        }
+    }
+
+    /**
+     * Does not block, except for waiting for room in a full queue under
+     * {@link RejectionPolicy#CALLER_BLOCKS}: the task is either started on an
+     * idle office process straight away or queued until one is released, and
+     * the returned future is completed from the pool's own threads.
+     * <p>
+     * Cancelling the future of a task that is still queued removes it from
+     * the queue; cancelling it while the task runs interrupts the task.
+     */
+    @Override
+    public CompletableFuture<Void> executeAsync(OfficeTask task) throws IllegalStateException {
         if (!running) {
             throw new IllegalStateException("this OfficeManager is currently stopped");
         }
+        if (settings.getHedgingPercentile() > 0.0 && task instanceof HedgeableTask
+                && task.getPriority() == TaskPriority.INTERACTIVE) {
+            return executeHedged((HedgeableTask) task);
+        }
+        return submit(task);
+    }
+
+    private CompletableFuture<Void> submit(OfficeTask task) {
+        CompletableFuture<Void> result = new CompletableFuture<Void>();
+        if (isExpired(task, System.currentTimeMillis())) {
+            result.completeExceptionally(new OfficeException("task deadline expired"));
+            return result;
+        }
         PooledOfficeManager manager = null;
+        QueuedTask droppedTask = null;
+        OfficeException rejection = null;
+        poolLock.lock();
         try {
-            manager = acquireManager();
-            if (manager == null) {
-                throw new OfficeException("no office manager available");
+            TenantState tenant = getTenantState(task.getTenant());
+            long admissionNanos = TimeUnit.MILLISECONDS.toNanos(settings.getAdmissionTimeout());
+            while (true) {
+                if (!running) {
+                    rejection = new TaskRejectedException("office manager stopped");
+                    break;
+                }
+                // queued tasks can only coexist with idle processes if their
+                // tenants are at their concurrency limit, so no one is overtaken
+                if (!idleManagers.isEmpty() && !tenant.isAtConcurrencyLimit()) {
+                    tenant.activate(poolVirtualTime);
+                    manager = selectIdleManager(task);
+                    idleManagers.remove(manager);
+                    dispatch(manager, tenant, 0L);
+                    break;
+                }
+                if (!isQueueFull()) {
+                    tenant.activate(poolVirtualTime);
+                    enqueue(new QueuedTask(task, tenant, result));
+                    break;
+                }
+                if (settings.getRejectionPolicy() == RejectionPolicy.DROP_OLDEST) {
+                    droppedTask = queuedTasks.get(0);
+                    dequeue(droppedTask, false);
+                    rejectedCount++;
+                    tenant.activate(poolVirtualTime);
+                    enqueue(new QueuedTask(task, tenant, result));
+                    break;
+                }
+                if (settings.getRejectionPolicy() == RejectionPolicy.CALLER_BLOCKS && admissionNanos > 0L) {
+                    try {
+                        admissionNanos = queueNotFull.awaitNanos(admissionNanos);
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                        rejection = new OfficeException("interrupted", interruptedException);
+                        break;
+                    }
+                    continue;
+                }
+                rejectedCount++;
+                rejection = new TaskRejectedException("task queue is full (" + queuedTasks.size() + " tasks)");
+                break;
             }
-            manager.execute(task);
         } finally {
-            if (manager != null) {
-                releaseManager(manager);
+            poolLock.unlock();
+        }
+        if (droppedTask != null) {
+            droppedTask.getResult().completeExceptionally(
+                    new TaskRejectedException("task dropped from full queue to admit a newer one"));
+        }
+        if (rejection != null) {
+            result.completeExceptionally(rejection);
+        } else if (manager != null) {
+            executeOn(manager, task, result);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a first attempt of the task right away and, if it is still running
+     * after the configured percentile of the execution times of similar
+     * tasks, a second attempt on another idle office process.
+     */
+    private CompletableFuture<Void> executeHedged(HedgeableTask task) {
+        final HedgedExecution execution = new HedgedExecution(task);
+        final HedgeableTask primaryAttempt = task.createAttempt();
+        CompletableFuture<Void> primary = submit(primaryAttempt);
+        execution.setPrimary(primary);
+        primary.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                execution.attemptCompleted(primaryAttempt, throwable);
             }
+        });
+        long hedgeDelay = latencyTracker.getPercentile(task.getLatencyClass(), settings.getHedgingPercentile());
+        if (hedgeDelay >= 0L && !primary.isDone()) {
+            final ScheduledFuture<?> hedgeTimer = scheduler.schedule(new Runnable() {
+                public void run() {
+                    hedge(execution);
+                }
+            }, hedgeDelay, TimeUnit.NANOSECONDS);
+            execution.getResult().whenComplete(new BiConsumer<Void, Throwable>() {
+                public void accept(Void ignored, Throwable throwable) {
+                    hedgeTimer.cancel(false);
+                }
+            });
         }
+        execution.getResult().whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                if (execution.getResult().isCancelled()) {
+                    execution.cancelAttempts();
+                }
+            }
+        });
+        return execution.getResult();
     }
 
+    /**
+     * Hedges only use spare capacity: if no office process is idle, the first
+     * attempt is left to finish on its own.
+     */
+    private void hedge(final HedgedExecution execution) {
+        if (!execution.isHedgeNeeded()) {
+            return;
+        }
+        final HedgeableTask hedgeAttempt = execution.getTask().createAttempt();
+        PooledOfficeManager manager = null;
+        poolLock.lock();
+        try {
+            TenantState tenant = getTenantState(hedgeAttempt.getTenant());
+            if (running && !idleManagers.isEmpty() && !tenant.isAtConcurrencyLimit()) {
+                manager = selectIdleManager(hedgeAttempt);
+                idleManagers.remove(manager);
+                tenant.activate(poolVirtualTime);
+                dispatch(manager, tenant, 0L);
+                hedgedCount++;
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        if (manager == null) {
+            return;
+        }
+        logger.info(String.format("task still running after the %.0fth percentile of its execution time; hedging on '%s'",
+                settings.getHedgingPercentile() * 100.0, manager.getUnoUrl()));
+        CompletableFuture<Void> hedge = new CompletableFuture<Void>();
+        execution.setHedge(hedge);
+        hedge.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                execution.attemptCompleted(hedgeAttempt, throwable);
+            }
+        });
+        executeOn(manager, hedgeAttempt, hedge);
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private PooledOfficeManager selectIdleManager(OfficeTask task) {
+        String affinityKey = task.getAffinityKey();
+        if (!settings.isAffinityRouting() || affinityKey == null || idleManagers.size() == 1) {
+            return settings.getDispatchPolicy().select(idleManagers);
+        }
+        List<PooledOfficeManager> candidates = new ArrayList<PooledOfficeManager>(idleManagers.size());
+        int bestAffinity = -1;
+        for (PooledOfficeManager idleManager : idleManagers) {
+            int affinity = idleManager.getAffinity(affinityKey);
+            if (affinity > bestAffinity) {
+                candidates.clear();
+                bestAffinity = affinity;
+            }
+            if (affinity == bestAffinity) {
+                candidates.add(idleManager);
+            }
+        }
+        return settings.getDispatchPolicy().select(candidates);
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private boolean isQueueFull() {
+        return settings.getMaxQueuedTasks() > 0 && queuedTasks.size() >= settings.getMaxQueuedTasks();
+    }
+
+    /**
+     * Stops all office processes in parallel.
+     */
     public synchronized void stop() throws OfficeException {
         running = false;
+        if (scalingExecutor == null) {
+            // never started
+            return;
+        }
         logger.info("stopping");
-        pool.clear();
-        for (int i = 0; i < pooledManagers.length; i++) {
-            pooledManagers[i].stop();
+        List<PooledOfficeManager> managersToStop;
+        List<QueuedTask> tasksToFail;
+        poolLock.lock();
+        try {
+            idleManagers.clear();
+            managersToStop = new ArrayList<PooledOfficeManager>(activeManagers);
+            managersToStop.addAll(standbyManagers);
+            managersToStop.addAll(quarantinedManagers);
+            activeManagers.clear();
+            standbyManagers.clear();
+            quarantinedManagers.clear();
+            tasksToFail = new ArrayList<QueuedTask>(queuedTasks);
+            for (QueuedTask queuedTask : tasksToFail) {
+                dequeue(queuedTask, false);
+            }
+            queueNotFull.signalAll();
+        } finally {
+            poolLock.unlock();
+        }
+        for (QueuedTask queuedTask : tasksToFail) {
+            queuedTask.getResult().completeExceptionally(new OfficeException("office manager stopped"));
+        }
+        List<Future<?>> shutdowns = new ArrayList<Future<?>>(managersToStop.size());
+        for (final PooledOfficeManager manager : managersToStop) {
+            shutdowns.add(scalingExecutor.submit(new Runnable() {
+                public void run() {
+                    manager.stop();
+                    returnUnoUrl(manager);
+                }
+            }));
+        }
+        // instances still starting in the background stop themselves
+        scalingExecutor.shutdown();
+        OfficeException stopException = null;
+        for (Future<?> shutdown : shutdowns) {
+            try {
+                shutdown.get();
+            } catch (ExecutionException executionException) {
+                Throwable cause = executionException.getCause();
+                if (stopException == null) {
+                    stopException = cause instanceof OfficeException ? (OfficeException) cause : new OfficeException(
+                            "could not stop instance", cause);
+                }
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                throw new OfficeException("interrupted", interruptedException);
+            }
+        }
+        scheduler.shutdownNow();
+        dispatchExecutor.shutdown();
+        if (stopException != null) {
+            throw stopException;
         }
         logger.info("stopped");
     }
 
-    private PooledOfficeManager acquireManager() {
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private void enqueue(final QueuedTask queuedTask) {
+        queuedTasks.add(queuedTask);
+        queuedTask.getTenant().queued();
+        long queueTimeout = settings.getTaskQueueTimeout(queuedTask.getPriority());
+        long deadline = queuedTask.getTask().getDeadline();
+        if (deadline != OfficeTask.NO_DEADLINE) {
+            queueTimeout = Math.min(queueTimeout, deadline - System.currentTimeMillis());
+        }
+        queuedTask.setQueueTimeout(scheduler.schedule(new Runnable() {
+            public void run() {
+                expire(queuedTask);
+            }
+        }, queueTimeout, TimeUnit.MILLISECONDS));
+        queuedTask.getResult().whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void result, Throwable throwable) {
+                if (queuedTask.getResult().isCancelled()) {
+                    poolLock.lock();
+                    try {
+                        dequeue(queuedTask, false);
+                    } finally {
+                        poolLock.unlock();
+                    }
+                }
+            }
+        });
+        scaleUpIfNeeded();
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     * 
+     * @return whether the task was still queued
+     */
+    private boolean dequeue(QueuedTask queuedTask, boolean timedOut) {
+        if (!queuedTasks.remove(queuedTask)) {
+            return false;
+        }
+        queuedTask.cancelQueueTimeout();
+        queuedTask.getTenant().dequeued(timedOut);
+        queueNotFull.signal();
+        return true;
+    }
+
+    private void expire(QueuedTask queuedTask) {
+        boolean expired;
+        poolLock.lock();
         try {
-            return pool.poll(taskQueueTimeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException interruptedException) {
-            throw new OfficeException("interrupted", interruptedException);
+            expired = dequeue(queuedTask, true);
+        } finally {
+            poolLock.unlock();
+        }
+        if (expired) {
+            queuedTask.getResult().completeExceptionally(createExpiryException(queuedTask));
         }
     }
 
-    private void releaseManager(PooledOfficeManager manager) {
+    private static OfficeException createExpiryException(QueuedTask queuedTask) {
+        if (isExpired(queuedTask.getTask(), System.currentTimeMillis())) {
+            return new OfficeException("task deadline expired before an office manager became available");
+        }
+        return new OfficeException("no office manager available");
+    }
+
+    private static boolean isExpired(OfficeTask task, long now) {
+        return task.getDeadline() != OfficeTask.NO_DEADLINE && task.getDeadline() <= now;
+    }
+
+    private void executeOn(final PooledOfficeManager manager, final OfficeTask task, final CompletableFuture<Void> result) {
+        final long startTime = System.nanoTime();
+        if (task.getAffinityKey() != null) {
+            manager.recordAffinityKey(task.getAffinityKey());
+        }
+        final CompletableFuture<Void> released = new CompletableFuture<Void>();
+        CompletableFuture<Void> execution;
         try {
-            pool.put(manager);
-        } catch (InterruptedException interruptedException) {
-            throw new OfficeException("interrupted", interruptedException);
+            execution = manager.executeAsync(task, released);
+        } catch (RuntimeException runtimeException) {
+            execution = new CompletableFuture<Void>();
+            execution.completeExceptionally(runtimeException);
+            released.complete(null);
+        }
+        final CompletableFuture<Void> managerExecution = execution;
+        result.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                if (result.isCancelled()) {
+                    managerExecution.cancel(true);
+                }
+            }
+        });
+        // never run on the caller's or the office task's thread, so that a
+        // long chain of hand-overs cannot build up on a single stack
+        execution.whenCompleteAsync(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, final Throwable throwable) {
+                long executionNanos = System.nanoTime() - startTime;
+                recordExecutionTime(executionNanos);
+                if (throwable == null) {
+                    latencyTracker.record(task.getLatencyClass(), executionNanos);
+                }
+                // only hangs and crashes say something about the instance,
+                // unlike e.g. a document that cannot be loaded or a task that
+                // merely ran out of its deadline
+                final boolean failed = throwable instanceof TaskAbortedException
+                        && !(throwable instanceof TaskExpiredException);
+                if (released.isDone()) {
+                    releaseManager(manager, task, failed);
+                } else {
+                    // the task was cancelled or timed out but still holds the
+                    // office process, which may have to be restarted to abort
+                    // it: don't hand the next task that restart
+                    released.whenCompleteAsync(new BiConsumer<Void, Throwable>() {
+                        public void accept(Void ignored, Throwable releaseFailure) {
+                            releaseManager(manager, task, failed);
+                        }
+                    }, dispatchExecutor);
+                }
+                if (throwable == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            }
+        }, dispatchExecutor);
+    }
+
+    private void recordExecutionTime(long executionNanos) {
+        poolLock.lock();
+        try {
+            if (averageExecutionNanos == 0.0) {
+                averageExecutionNanos = executionNanos;
+            } else {
+                averageExecutionNanos += EXECUTION_TIME_SMOOTHING * (executionNanos - averageExecutionNanos);
+            }
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * Hands the manager over to the next eligible queued task, if any, or
+     * makes it idle.
+     * 
+     * @param task
+     *            the task that has just been executed, or <code>null</code> if
+     *            the manager has just been started
+     * @param failed
+     *            whether the task failed because of the instance, i.e. hung or
+     *            lost its connection
+     */
+    private void releaseManager(PooledOfficeManager manager, OfficeTask task, boolean failed) {
+        QueuedTask nextTask = null;
+        List<QueuedTask> expiredTasks = new ArrayList<QueuedTask>(0);
+        List<PooledOfficeManager> handOverManagers = new ArrayList<PooledOfficeManager>(0);
+        List<QueuedTask> handOverTasks = new ArrayList<QueuedTask>(0);
+        List<PooledOfficeManager> managersToRetire = new ArrayList<PooledOfficeManager>(0);
+        poolLock.lock();
+        try {
+            if (task != null) {
+                getTenantState(task.getTenant()).completed();
+            }
+            if (!activeManagers.contains(manager)) {
+                // the completed task may have freed its tenant's capacity
+                handOverToIdleManagers(handOverManagers, handOverTasks);
+                return;
+            }
+            CircuitBreaker circuitBreaker = manager.getCircuitBreaker();
+            boolean quarantine = false;
+            if (task != null && circuitBreaker != null && circuitBreaker.recordOutcome(failed)) {
+                if (mayQuarantine()) {
+                    quarantine = true;
+                } else {
+                    logger.warning(String.format("instance '%s' failed %.0f%% of its recent tasks, but quarantining "
+                            + "it would leave too few instances", manager.getUnoUrl(),
+                            circuitBreaker.getFailureRate() * 100.0));
+                    circuitBreaker.reset();
+                }
+            }
+            if (quarantine) {
+                logger.warning(String.format("instance '%s' failed %.0f%% of its recent tasks; quarantining it",
+                        manager.getUnoUrl(), circuitBreaker.getFailureRate() * 100.0));
+                activeManagers.remove(manager);
+                quarantinedManagers.add(manager);
+                final PooledOfficeManager quarantinedManager = manager;
+                try {
+                    scalingExecutor.execute(new Runnable() {
+                        public void run() {
+                            recycleQuarantinedManager(quarantinedManager);
+                        }
+                    });
+                } catch (RejectedExecutionException rejectedExecutionException) {
+                    // the pool is stopping
+                    quarantinedManagers.remove(manager);
+                    managersToRetire.add(manager);
+                }
+                if (standbyManagers.isEmpty()) {
+                    handOverToIdleManagers(handOverManagers, handOverTasks);
+                    return;
+                }
+                manager = standbyManagers.remove(0);
+                logger.info(String.format("promoting standby instance '%s'", manager.getUnoUrl()));
+                activeManagers.add(manager);
+                replenishStandby();
+            } else if (manager.isRestartDue() && !standbyManagers.isEmpty()) {
+                PooledOfficeManager standbyManager = standbyManagers.remove(0);
+                logger.info(String.format("swapping instance '%s' for standby instance '%s'", manager.getUnoUrl(),
+                        standbyManager.getUnoUrl()));
+                activeManagers.remove(manager);
+                activeManagers.add(standbyManager);
+                final PooledOfficeManager retiredManager = manager;
+                try {
+                    scalingExecutor.execute(new Runnable() {
+                        public void run() {
+                            retireManager(retiredManager);
+                        }
+                    });
+                } catch (RejectedExecutionException rejectedExecutionException) {
+                    // the pool is stopping
+                    managersToRetire.add(retiredManager);
+                }
+                manager = standbyManager;
+                // uses a spare URL if there is one; otherwise the retired
+                // instance's URL replenishes the standby once it is returned
+                replenishStandby();
+            }
+            // the queue timeout is scheduled for the deadline, but may not
+            // have fired yet
+            long now = System.currentTimeMillis();
+            for (QueuedTask queuedTask : queuedTasks) {
+                if (isExpired(queuedTask.getTask(), now)) {
+                    expiredTasks.add(queuedTask);
+                }
+            }
+            for (QueuedTask expiredTask : expiredTasks) {
+                dequeue(expiredTask, true);
+            }
+            nextTask = selectNextQueuedTask();
+            if (nextTask != null) {
+                dequeue(nextTask, false);
+                dispatch(manager, nextTask.getTenant(), System.nanoTime() - nextTask.getEnqueueTime());
+            } else {
+                manager.setIdleSince(System.currentTimeMillis());
+                idleManagers.add(manager);
+            }
+        } finally {
+            poolLock.unlock();
+            for (int i = 0; i < handOverManagers.size(); i++) {
+                QueuedTask handOverTask = handOverTasks.get(i);
+                executeOn(handOverManagers.get(i), handOverTask.getTask(), handOverTask.getResult());
+            }
+            for (PooledOfficeManager managerToRetire : managersToRetire) {
+                retireManager(managerToRetire);
+            }
+        }
+        for (QueuedTask expiredTask : expiredTasks) {
+            expiredTask.getResult().completeExceptionally(createExpiryException(expiredTask));
+        }
+        if (nextTask != null) {
+            executeOn(manager, nextTask.getTask(), nextTask.getResult());
+        }
+    }
+
+    /**
+     * Starts queued tasks on idle managers for as long as there are both, i.e.
+     * tasks whose tenants are no longer at their concurrency limit.
+     * <p>
+     * Must be called while holding the pool lock.
+     */
+    private void handOverToIdleManagers(List<PooledOfficeManager> managers, List<QueuedTask> tasks) {
+        while (!idleManagers.isEmpty()) {
+            QueuedTask queuedTask = selectNextQueuedTask();
+            if (queuedTask == null) {
+                return;
+            }
+            PooledOfficeManager idleManager = selectIdleManager(queuedTask.getTask());
+            idleManagers.remove(idleManager);
+            dequeue(queuedTask, false);
+            dispatch(idleManager, queuedTask.getTenant(), System.nanoTime() - queuedTask.getEnqueueTime());
+            managers.add(idleManager);
+            tasks.add(queuedTask);
+        }
+    }
+
+    /**
+     * An instance may only be quarantined if a standby instance takes its
+     * place, or if that leaves at least one instance and no more than
+     * {@link #MAX_QUARANTINED_FRACTION} of the pool quarantined; otherwise a
+     * burst of failures could take the whole pool out of rotation.
+     * <p>
+     * Must be called while holding the pool lock.
+     */
+    private boolean mayQuarantine() {
+        return !standbyManagers.isEmpty() || (activeManagers.size() > 1
+                && quarantinedManagers.size() + 1 <= settings.getMaxInstances() * MAX_QUARANTINED_FRACTION);
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private void dispatch(PooledOfficeManager manager, TenantState tenant, long queueWaitNanos) {
+        manager.setDispatchSequence(++dispatchSequence);
+        poolVirtualTime = tenant.dispatched(queueWaitNanos);
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private QueuedTask selectNextQueuedTask() {
+        long now = System.nanoTime();
+        long agingInterval = settings.getPriorityAgingInterval();
+        QueuedTask nextTask = null;
+        int nextPriority = Integer.MAX_VALUE;
+        // queuedTasks is in arrival order, so remaining ties go to the longest wait
+        for (QueuedTask queuedTask : queuedTasks) {
+            if (queuedTask.getTenant().isAtConcurrencyLimit()) {
+                continue;
+            }
+            int effectivePriority = queuedTask.getEffectivePriority(now, agingInterval);
+            if (effectivePriority < nextPriority || (effectivePriority == nextPriority
+                    && queuedTask.getTenant().getVirtualTime() < nextTask.getTenant().getVirtualTime())) {
+                nextTask = queuedTask;
+                nextPriority = effectivePriority;
+            }
+        }
+        return nextTask;
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private TenantState getTenantState(String tenantName) {
+        String key = tenantName != null ? tenantName : OfficeTask.DEFAULT_TENANT;
+        TenantState tenant = tenants.get(key);
+        if (tenant == null) {
+            evictIdleTenants();
+            tenant = new TenantState(key, settings.getTenantWeight(key), settings.getTenantConcurrencyLimit(key));
+            tenants.put(key, tenant);
+        }
+        return tenant;
+    }
+
+    /**
+     * Forgets tenants that have been inactive for a while, so that the
+     * tenant map does not grow with every tenant name ever seen. An inactive
+     * tenant has no say in fair queueing, so only its statistics are lost.
+     * <p>
+     * Must be called while holding the pool lock.
+     */
+    private void evictIdleTenants() {
+        long now = System.currentTimeMillis();
+        if (now - lastTenantEviction < TENANT_EVICTION_INTERVAL) {
+            return;
+        }
+        lastTenantEviction = now;
+        Iterator<TenantState> iterator = tenants.values().iterator();
+        while (iterator.hasNext()) {
+            TenantState tenant = iterator.next();
+            if (!tenant.isActive() && now - tenant.getInactiveSince() >= TENANT_IDLE_TIMEOUT) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public Map<String, TenantStatistics> getTenantStatistics() {
+        Map<String, TenantStatistics> statistics = new TreeMap<String, TenantStatistics>();
+        poolLock.lock();
+        try {
+            for (TenantState tenant : tenants.values()) {
+                statistics.put(tenant.getTenant(), tenant.toStatistics());
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        return statistics;
+    }
+
+    public int getQueuedTaskCount() {
+        poolLock.lock();
+        try {
+            return queuedTasks.size();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    public long getEstimatedQueueWait() {
+        poolLock.lock();
+        try {
+            if (!idleManagers.isEmpty() && queuedTasks.isEmpty()) {
+                return 0L;
+            }
+            // every process works through its share of the queue, plus the
+            // task it is running, before the new task gets its turn
+            int instances = Math.max(activeManagers.size() + startingCount, 1);
+            double rounds = (queuedTasks.size() + 1) / (double) instances;
+            return (long) (rounds * averageExecutionNanos / 1000000.0);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    public long getHedgedTaskCount() {
+        poolLock.lock();
+        try {
+            return hedgedCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    public long getHealthCheckLatency() {
+        poolLock.lock();
+        try {
+            return (long) (averageHealthCheckNanos / 1000.0);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    public long getRejectedTaskCount() {
+        poolLock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    private void maintainPool() {
+        List<PooledOfficeManager> managersToRetire = new ArrayList<PooledOfficeManager>();
+        int remainingInstances;
+        poolLock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            replenishStandby();
+            scaleUpIfNeeded();
+            long idleTimeout = settings.getInstanceIdleTimeout();
+            if (settings.isElastic() && idleTimeout > 0L) {
+                long now = System.currentTimeMillis();
+                Iterator<PooledOfficeManager> iterator = idleManagers.iterator();
+                while (iterator.hasNext() && activeManagers.size() > settings.getMinInstances()) {
+                    PooledOfficeManager manager = iterator.next();
+                    if (now - manager.getIdleSince() >= idleTimeout) {
+                        iterator.remove();
+                        activeManagers.remove(manager);
+                        managersToRetire.add(manager);
+                    }
+                }
+            }
+            remainingInstances = activeManagers.size();
+        } finally {
+            poolLock.unlock();
+        }
+        for (final PooledOfficeManager manager : managersToRetire) {
+            logger.info(String.format("retiring idle instance '%s'; %d instances remain", manager.getUnoUrl(),
+                    remainingInstances));
+            // stopping may take up to retryTimeout; keep the scheduler free
+            try {
+                scalingExecutor.execute(new Runnable() {
+                    public void run() {
+                        retireManager(manager);
+                    }
+                });
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                // the pool is stopping and no longer knows about this instance
+                retireManager(manager);
+            }
+        }
+    }
+
+    /**
+     * Takes the instances that have been idle for at least the health check
+     * interval out of the idle list while they are probed; instances that are
+     * restarting anyway are left alone.
+     */
+    private void checkIdleManagers() {
+        List<PooledOfficeManager> managersToProbe = new ArrayList<PooledOfficeManager>();
+        poolLock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Iterator<PooledOfficeManager> iterator = idleManagers.iterator();
+            while (iterator.hasNext()) {
+                PooledOfficeManager manager = iterator.next();
+                if (manager.isRunning() && now - manager.getIdleSince() >= settings.getHealthCheckInterval()) {
+                    iterator.remove();
+                    managersToProbe.add(manager);
+                }
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        for (PooledOfficeManager manager : managersToProbe) {
+            probe(manager);
+        }
+    }
+
+    private void probe(final PooledOfficeManager manager) {
+        final long idleSince = manager.getIdleSince();
+        final long startTime = System.nanoTime();
+        final CompletableFuture<Void> released = new CompletableFuture<Void>();
+        CompletableFuture<Void> execution;
+        try {
+            execution = manager.executeAsync(new ProbeTask(System.currentTimeMillis()
+                    + settings.getHealthCheckTimeout()), released);
+        } catch (RuntimeException runtimeException) {
+            execution = new CompletableFuture<Void>();
+            execution.completeExceptionally(runtimeException);
+            released.complete(null);
+        }
+        execution.whenCompleteAsync(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                CompletableFuture<Void> restarted = released;
+                if (throwable == null) {
+                    recordHealthCheckTime(System.nanoTime() - startTime);
+                } else if (throwable instanceof TaskAbortedException) {
+                    // the process is being restarted already
+                    logger.warning(String.format("instance '%s' failed its health check: %s", manager.getUnoUrl(),
+                            throwable.getMessage()));
+                } else {
+                    logger.log(Level.WARNING, String.format("instance '%s' failed its health check; restarting it",
+                            manager.getUnoUrl()), throwable);
+                    if (manager.isRunning()) {
+                        // otherwise it lost its connection and is being
+                        // restarted already
+                        restarted = released.thenCompose(new Function<Void, CompletableFuture<Void>>() {
+                            public CompletableFuture<Void> apply(Void ignored) {
+                                return manager.restartDueToFailedHealthCheck();
+                            }
+                        });
+                    }
+                }
+                // a failed probe holds the process until it has restarted
+                restarted.whenCompleteAsync(new BiConsumer<Void, Throwable>() {
+                    public void accept(Void ignored, Throwable releaseFailure) {
+                        releaseManager(manager, null, false);
+                        poolLock.lock();
+                        try {
+                            if (idleManagers.contains(manager)) {
+                                // a health check does not count as activity
+                                manager.setIdleSince(idleSince);
+                            }
+                        } finally {
+                            poolLock.unlock();
+                        }
+                    }
+                }, dispatchExecutor);
+            }
+        }, dispatchExecutor);
+    }
+
+    private void recordHealthCheckTime(long healthCheckNanos) {
+        poolLock.lock();
+        try {
+            if (averageHealthCheckNanos == 0.0) {
+                averageHealthCheckNanos = healthCheckNanos;
+            } else {
+                averageHealthCheckNanos += EXECUTION_TIME_SMOOTHING * (healthCheckNanos - averageHealthCheckNanos);
+            }
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    private void retireManager(PooledOfficeManager manager) {
+        try {
+            manager.stop();
+        } catch (OfficeException officeException) {
+            logger.log(Level.WARNING, "could not stop instance " + manager.getUnoUrl(), officeException);
+        }
+        returnUnoUrl(manager);
+    }
+
+    /**
+     * Brings a quarantined instance back into the rotation once it has been
+     * restarted with a fresh profile and answered a probe, and tries again
+     * later otherwise.
+     */
+    private void recycleQuarantinedManager(final PooledOfficeManager manager) {
+        try {
+            manager.recycleAndProbe();
+        } catch (OfficeException officeException) {
+            logger.log(Level.WARNING, String.format("quarantined instance '%s' failed its probe; retrying in %d ms",
+                    manager.getUnoUrl(), QUARANTINE_RETRY_DELAY), officeException);
+            poolLock.lock();
+            try {
+                if (running && quarantinedManagers.contains(manager)) {
+                    scheduler.schedule(new Runnable() {
+                        public void run() {
+                            recycleQuarantinedManager(manager);
+                        }
+                    }, QUARANTINE_RETRY_DELAY, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                poolLock.unlock();
+            }
+            return;
+        }
+        boolean rejoined = false;
+        poolLock.lock();
+        try {
+            if (!running || !quarantinedManagers.remove(manager)) {
+                // stopped meanwhile
+                return;
+            }
+            manager.getCircuitBreaker().reset();
+            if (activeManagers.size() + startingCount < settings.getMaxInstances()) {
+                activeManagers.add(manager);
+                rejoined = true;
+            } else if (standbyManagers.size() + standbyStartingCount < settings.getStandbyInstances()) {
+                // a standby instance took its place; become a standby in turn
+                standbyManagers.add(manager);
+                return;
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        if (rejoined) {
+            logger.info(String.format("quarantined instance '%s' passed its probe; back in rotation",
+                    manager.getUnoUrl()));
+            releaseManager(manager, null, false);
+        } else {
+            retireManager(manager);
+        }
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private void scaleUpIfNeeded() {
+        if (!settings.isElastic() || scalingExecutor == null || scalingExecutor.isShutdown()
+                || activeManagers.size() + startingCount >= settings.getMaxInstances()) {
+            return;
+        }
+        // tasks held back by their tenant's concurrency limit would not run
+        // on a new instance either
+        int servable = 0;
+        QueuedTask oldestTask = null;
+        for (QueuedTask queuedTask : queuedTasks) {
+            if (!queuedTask.getTenant().isAtConcurrencyLimit()) {
+                servable++;
+                if (oldestTask == null) {
+                    oldestTask = queuedTask;
+                }
+            }
+        }
+        int unserved = servable - startingCount;
+        if (unserved <= 0) {
+            return;
+        }
+        boolean noInstances = activeManagers.isEmpty() && startingCount == 0;
+        boolean queueTooDeep = unserved >= settings.getScaleUpQueueDepth();
+        long oldestWait = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestTask.getEnqueueTime());
+        boolean waitTooLong = startingCount == 0 && oldestWait >= settings.getScaleUpQueueWait();
+        if ((noInstances || queueTooDeep || waitTooLong) && !standbyManagers.isEmpty()) {
+            final PooledOfficeManager standbyManager = standbyManagers.remove(0);
+            activeManagers.add(standbyManager);
+            logger.info(String.format("%d tasks waiting (oldest for %d ms); promoting standby instance '%s'",
+                    queuedTasks.size(), oldestWait, standbyManager.getUnoUrl()));
+            scalingExecutor.execute(new Runnable() {
+                public void run() {
+                    releaseManager(standbyManager, null, false);
+                }
+            });
+            replenishStandby();
+        } else if ((noInstances || queueTooDeep || waitTooLong) && !spareUnoUrls.isEmpty()) {
+            final UnoUrl unoUrl = spareUnoUrls.poll();
+            startingCount++;
+            logger.info(String.format("%d tasks waiting (oldest for %d ms); starting instance '%s'",
+                    queuedTasks.size(), oldestWait, unoUrl));
+            scalingExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        startAdditionalManager(unoUrl);
+                    } catch (OfficeException officeException) {
+                        // logged; the next maintenance run may try again
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the started manager, or <code>null</code> if the pool was
+     *         stopped meanwhile
+     */
+    private PooledOfficeManager startAdditionalManager(UnoUrl unoUrl) throws OfficeException {
+        PooledOfficeManager manager = createManager(unoUrl);
+        try {
+            manager.start();
+        } catch (OfficeException officeException) {
+            logger.log(Level.SEVERE, "could not start instance " + unoUrl, officeException);
+            poolLock.lock();
+            try {
+                startingCount--;
+                spareUnoUrls.addLast(unoUrl);
+            } finally {
+                poolLock.unlock();
+            }
+            throw officeException;
+        }
+        boolean added = false;
+        poolLock.lock();
+        try {
+            startingCount--;
+            if (running) {
+                activeManagers.add(manager);
+                added = true;
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        if (added) {
+            releaseManager(manager, null, false);
+            return manager;
+        }
+        retireManager(manager);
+        return null;
+    }
+
+    /**
+     * Must be called while holding the pool lock.
+     */
+    private void replenishStandby() {
+        while (running && standbyManagers.size() + standbyStartingCount < settings.getStandbyInstances()
+                && !spareUnoUrls.isEmpty()) {
+            final UnoUrl unoUrl = spareUnoUrls.poll();
+            standbyStartingCount++;
+            scalingExecutor.execute(new Runnable() {
+                public void run() {
+                    startStandbyManager(unoUrl);
+                }
+            });
+        }
+    }
+
+    private void startStandbyManager(UnoUrl unoUrl) {
+        PooledOfficeManager manager = createManager(unoUrl);
+        try {
+            manager.start();
+        } catch (OfficeException officeException) {
+            // retried by the next maintenance run
+            logger.log(Level.SEVERE, "could not start standby instance " + unoUrl, officeException);
+            poolLock.lock();
+            try {
+                standbyStartingCount--;
+                spareUnoUrls.addLast(unoUrl);
+            } finally {
+                poolLock.unlock();
+            }
+            return;
+        }
+        boolean added = false;
+        poolLock.lock();
+        try {
+            standbyStartingCount--;
+            if (running) {
+                standbyManagers.add(manager);
+                added = true;
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        if (!added) {
+            retireManager(manager);
+        }
+    }
+
+    private PooledOfficeManager createManager(UnoUrl unoUrl) {
+        PooledOfficeManagerSettings managerSettings = settings.createPooledOfficeManagerSettings(unoUrl);
+        managerSettings.setRecycleCoordinator(recycleCoordinator);
+        managerSettings.setTimeoutEstimator(timeoutEstimator);
+        PooledOfficeManager manager = newManager(managerSettings);
+        if (settings.getCircuitBreakerFailureRate() > 0.0) {
+            manager.setCircuitBreaker(new CircuitBreaker(settings.getCircuitBreakerFailureRate()));
+        }
+        return manager;
+    }
+
+    /**
+     * Overridden by tests to pool managers that run no office process.
+     */
+    PooledOfficeManager newManager(PooledOfficeManagerSettings managerSettings) {
+        return new PooledOfficeManager(managerSettings);
+    }
+
+    private void returnUnoUrl(PooledOfficeManager manager) {
+        poolLock.lock();
+        try {
+            spareUnoUrls.addLast(manager.getUnoUrl());
+            replenishStandby();
+        } finally {
+            poolLock.unlock();
         }
     }
 
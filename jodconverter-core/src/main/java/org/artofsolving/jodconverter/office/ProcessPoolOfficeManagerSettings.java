@@ -0,0 +1,455 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.process.ProcessManager;
+import org.artofsolving.jodconverter.process.PureJavaProcessManager;
+
+class ProcessPoolOfficeManagerSettings {
+
+    public static final long DEFAULT_TASK_QUEUE_TIMEOUT = 30000L;
+    public static final long DEFAULT_PRIORITY_AGING_INTERVAL = 10000L;
+    public static final int DEFAULT_SCALE_UP_QUEUE_DEPTH = 4;
+    public static final long DEFAULT_SCALE_UP_QUEUE_WAIT = 2000L;
+    public static final long DEFAULT_INSTANCE_IDLE_TIMEOUT = 300000L;
+    public static final long DEFAULT_ADMISSION_TIMEOUT = 5000L;
+    public static final double DEFAULT_RECYCLE_JITTER = 0.0;
+    public static final long DEFAULT_HEALTH_CHECK_TIMEOUT = 5000L;
+    public static final double DEFAULT_ADAPTIVE_TIMEOUT_FACTOR = 3.0;
+    public static final long DEFAULT_MIN_TASK_EXECUTION_TIMEOUT = 10000L;
+    public static final long DEFAULT_MAX_TASK_EXECUTION_TIMEOUT = 600000L;
+
+    private final UnoUrl[] unoUrls;
+    private File officeHome = null;
+    private String[] runAsArgs;
+    private File templateProfileDir;
+    private File workDir = new File(System.getProperty("java.io.tmpdir"));
+    private ProcessManager processManager = new PureJavaProcessManager();
+    private long retryTimeout = DefaultOfficeManagerConfiguration.DEFAULT_RETRY_TIMEOUT;
+    private final Map<TaskPriority, Long> taskQueueTimeouts = new EnumMap<TaskPriority, Long>(TaskPriority.class);
+    private long priorityAgingInterval = DEFAULT_PRIORITY_AGING_INTERVAL;
+    private long taskExecutionTimeout = PooledOfficeManagerSettings.DEFAULT_TASK_EXECUTION_TIMEOUT;
+    private double adaptiveTimeoutPercentile = 0.0;
+    private double adaptiveTimeoutFactor = DEFAULT_ADAPTIVE_TIMEOUT_FACTOR;
+    private long minTaskExecutionTimeout = DEFAULT_MIN_TASK_EXECUTION_TIMEOUT;
+    private long maxTaskExecutionTimeout = DEFAULT_MAX_TASK_EXECUTION_TIMEOUT;
+    private int maxTasksPerProcess = PooledOfficeManagerSettings.DEFAULT_MAX_TASKS_PER_PROCESS;
+    private long maxResidentMemory = 0L;
+    private long maxCpuTime = 0L;
+    private double recycleJitter = DEFAULT_RECYCLE_JITTER;
+    private int maxConcurrentRestarts = 0;
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.ROUND_ROBIN;
+    private boolean affinityRouting = false;
+    private double hedgingPercentile = 0.0;
+    private double circuitBreakerFailureRate = 0.0;
+    private long healthCheckInterval = 0L;
+    private long healthCheckTimeout = DEFAULT_HEALTH_CHECK_TIMEOUT;
+    private boolean virtualThreads = false;
+    private int minInstances;
+    private int standbyInstances = 0;
+    private int startupQuorum = 0;
+    private int scaleUpQueueDepth = DEFAULT_SCALE_UP_QUEUE_DEPTH;
+    private long scaleUpQueueWait = DEFAULT_SCALE_UP_QUEUE_WAIT;
+    private long instanceIdleTimeout = DEFAULT_INSTANCE_IDLE_TIMEOUT;
+    private int maxQueuedTasks = 0;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL_FAST;
+    private long admissionTimeout = DEFAULT_ADMISSION_TIMEOUT;
+    private final Map<String, Integer> tenantWeights = new HashMap<String, Integer>();
+    private final Map<String, Integer> tenantConcurrencyLimits = new HashMap<String, Integer>();
+
+    public ProcessPoolOfficeManagerSettings(UnoUrl... unoUrls) {
+        this.unoUrls = unoUrls;
+        this.minInstances = unoUrls.length;
+        setTaskQueueTimeout(DEFAULT_TASK_QUEUE_TIMEOUT);
+    }
+
+    /**
+     * @return one {@link UnoUrl} per instance the pool may run, whether
+     *         serving tasks or on standby
+     */
+    public UnoUrl[] getUnoUrls() {
+        return unoUrls;
+    }
+
+    public File getOfficeHome() {
+        return officeHome;
+    }
+
+    public void setOfficeHome(File officeHome) {
+        this.officeHome = officeHome;
+    }
+
+    public String[] getRunAsArgs() {
+        return runAsArgs;
+    }
+
+    public void setRunAsArgs(String[] runAsArgs) {
+        this.runAsArgs = runAsArgs;
+    }
+
+    public File getTemplateProfileDir() {
+        return templateProfileDir;
+    }
+
+    public void setTemplateProfileDir(File templateProfileDir) {
+        this.templateProfileDir = templateProfileDir;
+    }
+
+    public File getWorkDir() {
+        return workDir;
+    }
+
+    public void setWorkDir(File workDir) {
+        this.workDir = workDir;
+    }
+
+    public ProcessManager getProcessManager() {
+        return processManager;
+    }
+
+    public void setProcessManager(ProcessManager processManager) {
+        this.processManager = processManager;
+    }
+
+    public long getRetryTimeout() {
+        return retryTimeout;
+    }
+
+    public void setRetryTimeout(long retryTimeout) {
+        this.retryTimeout = retryTimeout;
+    }
+
+    public long getTaskQueueTimeout(TaskPriority priority) {
+        return taskQueueTimeouts.get(priority).longValue();
+    }
+
+    /**
+     * Sets the same queue timeout for every {@link TaskPriority}.
+     */
+    public void setTaskQueueTimeout(long taskQueueTimeout) {
+        for (TaskPriority priority : TaskPriority.values()) {
+            setTaskQueueTimeout(priority, taskQueueTimeout);
+        }
+    }
+
+    public void setTaskQueueTimeout(TaskPriority priority, long taskQueueTimeout) {
+        taskQueueTimeouts.put(priority, Long.valueOf(taskQueueTimeout));
+    }
+
+    public long getPriorityAgingInterval() {
+        return priorityAgingInterval;
+    }
+
+    public void setPriorityAgingInterval(long priorityAgingInterval) {
+        this.priorityAgingInterval = priorityAgingInterval;
+    }
+
+    public long getTaskExecutionTimeout() {
+        return taskExecutionTimeout;
+    }
+
+    public void setTaskExecutionTimeout(long taskExecutionTimeout) {
+        this.taskExecutionTimeout = taskExecutionTimeout;
+    }
+
+    /**
+     * @return the percentile of recent execution times of a latency class
+     *         that its execution timeout is derived from, or zero if every
+     *         task gets the fixed <em>taskExecutionTimeout</em>
+     */
+    public double getAdaptiveTimeoutPercentile() {
+        return adaptiveTimeoutPercentile;
+    }
+
+    public void setAdaptiveTimeoutPercentile(double adaptiveTimeoutPercentile) {
+        this.adaptiveTimeoutPercentile = adaptiveTimeoutPercentile;
+    }
+
+    public double getAdaptiveTimeoutFactor() {
+        return adaptiveTimeoutFactor;
+    }
+
+    public void setAdaptiveTimeoutFactor(double adaptiveTimeoutFactor) {
+        this.adaptiveTimeoutFactor = adaptiveTimeoutFactor;
+    }
+
+    public long getMinTaskExecutionTimeout() {
+        return minTaskExecutionTimeout;
+    }
+
+    public void setMinTaskExecutionTimeout(long minTaskExecutionTimeout) {
+        this.minTaskExecutionTimeout = minTaskExecutionTimeout;
+    }
+
+    public long getMaxTaskExecutionTimeout() {
+        return maxTaskExecutionTimeout;
+    }
+
+    public void setMaxTaskExecutionTimeout(long maxTaskExecutionTimeout) {
+        this.maxTaskExecutionTimeout = maxTaskExecutionTimeout;
+    }
+
+    public int getMaxTasksPerProcess() {
+        return maxTasksPerProcess;
+    }
+
+    public void setMaxTasksPerProcess(int maxTasksPerProcess) {
+        this.maxTasksPerProcess = maxTasksPerProcess;
+    }
+
+    public long getMaxResidentMemory() {
+        return maxResidentMemory;
+    }
+
+    public void setMaxResidentMemory(long maxResidentMemory) {
+        this.maxResidentMemory = maxResidentMemory;
+    }
+
+    public long getMaxCpuTime() {
+        return maxCpuTime;
+    }
+
+    public void setMaxCpuTime(long maxCpuTime) {
+        this.maxCpuTime = maxCpuTime;
+    }
+
+    public double getRecycleJitter() {
+        return recycleJitter;
+    }
+
+    public void setRecycleJitter(double recycleJitter) {
+        this.recycleJitter = recycleJitter;
+    }
+
+    /**
+     * @return the maximum number of instances restarting at the same time
+     *         because of <em>maxTasksPerProcess</em>, or zero if unlimited
+     */
+    public int getMaxConcurrentRestarts() {
+        return maxConcurrentRestarts;
+    }
+
+    public void setMaxConcurrentRestarts(int maxConcurrentRestarts) {
+        this.maxConcurrentRestarts = maxConcurrentRestarts;
+    }
+
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    public void setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+    }
+
+    /**
+     * @return the number of instances {@link ProcessPoolOfficeManager#start()}
+     *         waits for, or zero to wait for all <em>minInstances</em>
+     */
+    public int getStartupQuorum() {
+        return startupQuorum;
+    }
+
+    public void setStartupQuorum(int startupQuorum) {
+        this.startupQuorum = startupQuorum;
+    }
+
+    public int getMaxInstances() {
+        return unoUrls.length - standbyInstances;
+    }
+
+    public boolean isAffinityRouting() {
+        return affinityRouting;
+    }
+
+    public void setAffinityRouting(boolean affinityRouting) {
+        this.affinityRouting = affinityRouting;
+    }
+
+    /**
+     * @return the fraction of recent similar tasks that must have completed
+     *         faster before an interactive {@link HedgeableTask} is hedged, or
+     *         zero if hedging is disabled
+     */
+    public double getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    public void setHedgingPercentile(double hedgingPercentile) {
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    /**
+     * @return the failure rate among its recent tasks at which an instance is
+     *         taken out of rotation, recycled and probed, or zero if circuit
+     *         breaking is disabled
+     */
+    public double getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+
+    public void setCircuitBreakerFailureRate(double circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+    }
+
+    /**
+     * @return how long, in milliseconds, an office process may stay idle
+     *         before it is probed, or zero if health checks are disabled
+     */
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public long getHealthCheckTimeout() {
+        return healthCheckTimeout;
+    }
+
+    public void setHealthCheckTimeout(long healthCheckTimeout) {
+        this.healthCheckTimeout = healthCheckTimeout;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getMinInstances() {
+        return minInstances;
+    }
+
+    public void setMinInstances(int minInstances) {
+        this.minInstances = minInstances;
+    }
+
+    /**
+     * @return whether the pool starts and retires instances on demand rather
+     *         than running all of them from {@link ProcessPoolOfficeManager#start()}
+     */
+    public boolean isElastic() {
+        return minInstances < getMaxInstances();
+    }
+
+    /**
+     * @return the number of started office processes kept in reserve to
+     *         replace instances that reached <em>maxTasksPerProcess</em>
+     */
+    public int getStandbyInstances() {
+        return standbyInstances;
+    }
+
+    public void setStandbyInstances(int standbyInstances) {
+        this.standbyInstances = standbyInstances;
+    }
+
+    public int getScaleUpQueueDepth() {
+        return scaleUpQueueDepth;
+    }
+
+    public void setScaleUpQueueDepth(int scaleUpQueueDepth) {
+        this.scaleUpQueueDepth = scaleUpQueueDepth;
+    }
+
+    public long getScaleUpQueueWait() {
+        return scaleUpQueueWait;
+    }
+
+    public void setScaleUpQueueWait(long scaleUpQueueWait) {
+        this.scaleUpQueueWait = scaleUpQueueWait;
+    }
+
+    public long getInstanceIdleTimeout() {
+        return instanceIdleTimeout;
+    }
+
+    public void setInstanceIdleTimeout(long instanceIdleTimeout) {
+        this.instanceIdleTimeout = instanceIdleTimeout;
+    }
+
+    /**
+     * @return the maximum number of tasks waiting for an office process, or
+     *         zero if unbounded
+     */
+    public int getMaxQueuedTasks() {
+        return maxQueuedTasks;
+    }
+
+    public void setMaxQueuedTasks(int maxQueuedTasks) {
+        this.maxQueuedTasks = maxQueuedTasks;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    public long getAdmissionTimeout() {
+        return admissionTimeout;
+    }
+
+    public void setAdmissionTimeout(long admissionTimeout) {
+        this.admissionTimeout = admissionTimeout;
+    }
+
+    public int getTenantWeight(String tenant) {
+        Integer weight = tenantWeights.get(tenant);
+        return weight != null ? weight.intValue() : 1;
+    }
+
+    public void setTenantWeight(String tenant, int weight) {
+        tenantWeights.put(tenant, Integer.valueOf(weight));
+    }
+
+    /**
+     * @return the maximum number of tasks of the tenant that may run at the
+     *         same time, or zero if unlimited
+     */
+    public int getTenantConcurrencyLimit(String tenant) {
+        Integer concurrencyLimit = tenantConcurrencyLimits.get(tenant);
+        return concurrencyLimit != null ? concurrencyLimit.intValue() : 0;
+    }
+
+    public void setTenantConcurrencyLimit(String tenant, int concurrencyLimit) {
+        tenantConcurrencyLimits.put(tenant, Integer.valueOf(concurrencyLimit));
+    }
+
+    PooledOfficeManagerSettings createPooledOfficeManagerSettings(UnoUrl unoUrl) {
+        PooledOfficeManagerSettings settings = new PooledOfficeManagerSettings(unoUrl);
+        settings.setRunAsArgs(runAsArgs);
+        settings.setTemplateProfileDir(templateProfileDir);
+        settings.setWorkDir(workDir);
+        settings.setOfficeHome(officeHome);
+        settings.setRetryTimeout(retryTimeout);
+        settings.setTaskExecutionTimeout(taskExecutionTimeout);
+        settings.setMaxTasksPerProcess(maxTasksPerProcess);
+        settings.setMaxResidentMemory(maxResidentMemory);
+        settings.setMaxCpuTime(maxCpuTime);
+        settings.setProcessManager(processManager);
+        settings.setVirtualThreads(virtualThreads);
+        return settings;
+    }
+
+}
@@ -0,0 +1,94 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * An {@link OfficeTask} waiting in {@link ProcessPoolOfficeManager} for an
+ * office process to be handed to it.
+ * <p>
+ * Not thread safe: apart from {@link #getResult()}, all access must happen
+ * while holding the pool lock.
+ */
+class QueuedTask {
+
+    private final OfficeTask task;
+    private final TaskPriority priority;
+    private final TenantState tenant;
+    private final long enqueueTime = System.nanoTime();
+    private final CompletableFuture<Void> result;
+
+    private ScheduledFuture<?> queueTimeout;
+
+    public QueuedTask(OfficeTask task, TenantState tenant, CompletableFuture<Void> result) {
+        this.task = task;
+        this.priority = task.getPriority() != null ? task.getPriority() : TaskPriority.NORMAL;
+        this.tenant = tenant;
+        this.result = result;
+    }
+
+    public OfficeTask getTask() {
+        return task;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public TenantState getTenant() {
+        return tenant;
+    }
+
+    public long getEnqueueTime() {
+        return enqueueTime;
+    }
+
+    /**
+     * @param now
+     *            as returned by {@link System#nanoTime()}
+     * @param agingInterval
+     *            in milliseconds; zero or less disables aging
+     * @return the priority ordinal, reduced by one for every
+     *         <code>agingInterval</code> spent waiting so that low priority
+     *         tasks cannot starve; lower values are served first
+     */
+    public int getEffectivePriority(long now, long agingInterval) {
+        int effectivePriority = priority.ordinal();
+        if (agingInterval > 0L) {
+            long waitedMillis = (now - enqueueTime) / 1000000L;
+            effectivePriority -= (int) Math.min(waitedMillis / agingInterval, TaskPriority.values().length);
+        }
+        return effectivePriority;
+    }
+
+    /**
+     * @return the future returned to the caller of
+     *         {@link OfficeManager#executeAsync(OfficeTask)}
+     */
+    public CompletableFuture<Void> getResult() {
+        return result;
+    }
+
+    public void setQueueTimeout(ScheduledFuture<?> queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
+
+    public void cancelQueueTimeout() {
+        if (queueTimeout != null) {
+            queueTimeout.cancel(false);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the {@link PooledOfficeManager}s of a pool from restarting all at the
+ * same time because of <em>maxTasksPerProcess</em>: each instance draws a
+ * slightly different task limit after every restart, and only a limited
+ * number of instances may be restarting at once. An instance that is due but
+ * cannot restart yet keeps executing tasks and tries again with its next one.
+ */
+class RecycleCoordinator {
+
+    private final double jitter;
+    private final int maxConcurrentRestarts;
+    private final AtomicInteger restartingCount = new AtomicInteger();
+    private final Random random = new Random();
+
+    /**
+     * @param jitter
+     *            fraction, between 0 and 1, by which a task limit may be
+     *            lowered below <em>maxTasksPerProcess</em>
+     * @param maxConcurrentRestarts
+     *            zero or less for no limit
+     */
+    public RecycleCoordinator(double jitter, int maxConcurrentRestarts) {
+        this.jitter = jitter;
+        this.maxConcurrentRestarts = maxConcurrentRestarts;
+    }
+
+    /**
+     * @return the number of tasks an instance should execute before its next
+     *         restart; at least 1, and zero if <code>maxTasksPerProcess</code>
+     *         is zero or less
+     */
+    public int nextTaskLimit(int maxTasksPerProcess) {
+        if (maxTasksPerProcess <= 0 || jitter <= 0.0) {
+            return maxTasksPerProcess;
+        }
+        double reduction;
+        synchronized (random) {
+            reduction = random.nextDouble() * jitter;
+        }
+        return Math.max(1, (int) Math.round(maxTasksPerProcess * (1.0 - reduction)));
+    }
+
+    /**
+     * @return whether the caller may restart now; if so, it must call
+     *         {@link #endRestart()} once done
+     */
+    public boolean tryBeginRestart() {
+        while (true) {
+            int current = restartingCount.get();
+            if (maxConcurrentRestarts > 0 && current >= maxConcurrentRestarts) {
+                return false;
+            }
+            if (restartingCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void endRestart() {
+        restartingCount.decrementAndGet();
+    }
+
+    public int getRestartingCount() {
+        return restartingCount.get();
+    }
+
+}
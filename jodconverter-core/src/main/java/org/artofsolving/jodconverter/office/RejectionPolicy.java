@@ -0,0 +1,40 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * What happens to a new {@link OfficeTask} when the queue of tasks waiting for
+ * an office process has reached <em>maxQueuedTasks</em>.
+ */
+public enum RejectionPolicy {
+
+    /**
+     * The new task fails straight away with a {@link TaskRejectedException}.
+     */
+    FAIL_FAST,
+
+    /**
+     * The submitting thread waits up to <em>admissionTimeout</em> for a place
+     * in the queue; after that the new task fails with a
+     * {@link TaskRejectedException}.
+     */
+    CALLER_BLOCKS,
+
+    /**
+     * The task that has been queued longest fails with a
+     * {@link TaskRejectedException} to make room for the new one, on the
+     * basis that its caller is the most likely to have given up already.
+     */
+    DROP_OLDEST
+
+}
@@ -20,11 +20,12 @@ abstract class Retryable {
      */
     protected abstract void attempt() throws TemporaryException, Exception;
 
-    public void execute(long interval, long timeout) throws RetryTimeoutException, Exception {
+    public void execute(long interval, long timeout) throws RetryTimeoutException, InterruptedException, Exception {
         execute(0L, interval, timeout);
     }
 
-    public void execute(long delay, long interval, long timeout) throws RetryTimeoutException, Exception {
+    public void execute(long delay, long interval, long timeout) throws RetryTimeoutException, InterruptedException,
+            Exception {
         long start = System.currentTimeMillis();
         if (delay > 0L) {
             sleep(delay);
@@ -44,12 +45,8 @@ abstract class Retryable {
         }
     }
 
-    private void sleep(long millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException interruptedException) {
-            // continue
-        }
+    private void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
     }
 
 }
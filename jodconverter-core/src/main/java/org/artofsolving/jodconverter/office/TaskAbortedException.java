@@ -0,0 +1,33 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * Used to complete the future of an {@link OfficeTask} whose office process
+ * died while running it, or had to be restarted because the task exceeded
+ * its execution timeout. Unlike other failures, these cost the pool a full
+ * process restart.
+ */
+public class TaskAbortedException extends OfficeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TaskAbortedException(String message) {
+        super(message);
+    }
+
+    public TaskAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,30 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * A {@link TaskAbortedException} for a task whose execution timeout was
+ * shortened by its deadline (see {@link OfficeTask#getDeadline()}) and that ran
+ * out of it. The task may simply have been slow, so unlike other aborts this
+ * says nothing about the document or the office process. A task that runs out
+ * of an adaptive timeout is aborted with a plain {@link TaskAbortedException}.
+ */
+public class TaskExpiredException extends TaskAbortedException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TaskExpiredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,30 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * The lane an {@link OfficeTask} queues in while it waits for an office
+ * process, highest priority first.
+ */
+public enum TaskPriority {
+
+    /** Requests somebody is actively waiting on, e.g. previews. */
+    INTERACTIVE,
+
+    /** The default. */
+    NORMAL,
+
+    /** Bulk or background work that can afford to wait. */
+    BATCH
+
+}
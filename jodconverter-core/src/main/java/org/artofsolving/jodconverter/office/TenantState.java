@@ -0,0 +1,128 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * Fair queueing and queue wait bookkeeping for one tenant of a
+ * {@link ProcessPoolOfficeManager}.
+ * <p>
+ * Not thread safe: all access must happen while holding the pool lock.
+ */
+class TenantState {
+
+    private final String tenant;
+    private final int weight;
+    private final int concurrencyLimit;
+
+    private double virtualTime = 0.0;
+    private int queuedCount = 0;
+    private int runningCount = 0;
+    private long dispatchedCount = 0L;
+    private long timedOutCount = 0L;
+    private long totalQueueWaitNanos = 0L;
+    private long maxQueueWaitNanos = 0L;
+    private long inactiveSince = System.currentTimeMillis();
+
+    /**
+     * @param weight
+     *            relative share of the pool when several tenants are queueing
+     * @param concurrencyLimit
+     *            maximum number of tasks running at the same time; zero or
+     *            less for no limit
+     */
+    public TenantState(String tenant, int weight, int concurrencyLimit) {
+        this.tenant = tenant;
+        this.weight = weight;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public boolean isActive() {
+        return queuedCount > 0 || runningCount > 0;
+    }
+
+    /**
+     * @return when this tenant last had neither queued nor running tasks;
+     *         meaningless while it is active
+     */
+    public long getInactiveSince() {
+        return inactiveSince;
+    }
+
+    public boolean isAtConcurrencyLimit() {
+        return concurrencyLimit > 0 && runningCount >= concurrencyLimit;
+    }
+
+    /**
+     * @return the amount of pool time this tenant has been served, scaled by
+     *         its weight; the queued tenant with the lowest value goes first
+     */
+    public double getVirtualTime() {
+        return virtualTime;
+    }
+
+    /**
+     * A tenant that was inactive must not be able to claim the service it
+     * missed meanwhile, so it catches up with the pool's virtual time.
+     */
+    public void activate(double poolVirtualTime) {
+        if (!isActive()) {
+            virtualTime = Math.max(virtualTime, poolVirtualTime);
+        }
+    }
+
+    public void queued() {
+        queuedCount++;
+    }
+
+    public void dequeued(boolean timedOut) {
+        queuedCount--;
+        if (timedOut) {
+            timedOutCount++;
+        }
+        if (!isActive()) {
+            inactiveSince = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @return the virtual time at which the task started, i.e. before it was
+     *         charged to this tenant
+     */
+    public double dispatched(long queueWaitNanos) {
+        double startTime = virtualTime;
+        virtualTime += 1.0 / weight;
+        runningCount++;
+        dispatchedCount++;
+        totalQueueWaitNanos += queueWaitNanos;
+        maxQueueWaitNanos = Math.max(maxQueueWaitNanos, queueWaitNanos);
+        return startTime;
+    }
+
+    public void completed() {
+        runningCount--;
+        if (!isActive()) {
+            inactiveSince = System.currentTimeMillis();
+        }
+    }
+
+    public TenantStatistics toStatistics() {
+        long averageQueueWait = dispatchedCount > 0 ? totalQueueWaitNanos / dispatchedCount / 1000000L : 0L;
+        return new TenantStatistics(tenant, weight, concurrencyLimit, queuedCount, runningCount, dispatchedCount,
+                timedOutCount, averageQueueWait, maxQueueWaitNanos / 1000000L);
+    }
+
+}
@@ -0,0 +1,101 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+/**
+ * Snapshot of how one tenant has been served by a {@link MonitoredOfficeManager}.
+ * <p>
+ * Queue wait times cover all tasks dispatched since the pool was created,
+ * including tasks that did not have to wait at all.
+ */
+public class TenantStatistics {
+
+    private final String tenant;
+    private final int weight;
+    private final int concurrencyLimit;
+    private final int queuedTasks;
+    private final int runningTasks;
+    private final long dispatchedTasks;
+    private final long timedOutTasks;
+    private final long averageQueueWait;
+    private final long maxQueueWait;
+
+    public TenantStatistics(String tenant, int weight, int concurrencyLimit, int queuedTasks, int runningTasks,
+            long dispatchedTasks, long timedOutTasks, long averageQueueWait, long maxQueueWait) {
+        this.tenant = tenant;
+        this.weight = weight;
+        this.concurrencyLimit = concurrencyLimit;
+        this.queuedTasks = queuedTasks;
+        this.runningTasks = runningTasks;
+        this.dispatchedTasks = dispatchedTasks;
+        this.timedOutTasks = timedOutTasks;
+        this.averageQueueWait = averageQueueWait;
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the maximum number of concurrently running tasks, or zero if
+     *         unlimited
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public int getRunningTasks() {
+        return runningTasks;
+    }
+
+    public long getDispatchedTasks() {
+        return dispatchedTasks;
+    }
+
+    /**
+     * @return the number of tasks that gave up waiting for an office process
+     */
+    public long getTimedOutTasks() {
+        return timedOutTasks;
+    }
+
+    /**
+     * @return in milliseconds
+     */
+    public long getAverageQueueWait() {
+        return averageQueueWait;
+    }
+
+    /**
+     * @return in milliseconds
+     */
+    public long getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (weight %d): %d queued, %d running, %d dispatched, %d timed out, queue wait avg %d ms max %d ms",
+                tenant, weight, queuedTasks, runningTasks, dispatchedTasks, timedOutTasks, averageQueueWait, maxQueueWait);
+    }
+
+}
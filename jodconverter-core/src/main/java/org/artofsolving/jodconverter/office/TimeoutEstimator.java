@@ -0,0 +1,83 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Learns an execution timeout per {@link OfficeTask#getLatencyClass()} from
+ * the execution times of recent tasks of the class, as recorded in the pool's
+ * {@link LatencyTracker}, timed out ones counting as their timeout: a
+ * percentile of them multiplied by a safety factor, kept between a floor and
+ * a ceiling.
+ * Shared by all instances of a pool.
+ */
+class TimeoutEstimator {
+
+    private final LatencyTracker latencyTracker;
+    private final double percentile;
+    private final double factor;
+    private final long minTimeout;
+    private final long maxTimeout;
+
+    /**
+     * @param latencyTracker
+     *            keyed by latency class; successful tasks are recorded in it
+     *            by the pool
+     * @param percentile
+     *            between 0 and 1
+     * @param factor
+     *            applied to the percentile
+     * @param minTimeout
+     *            in milliseconds
+     * @param maxTimeout
+     *            in milliseconds
+     */
+    public TimeoutEstimator(LatencyTracker latencyTracker, double percentile, double factor, long minTimeout,
+            long maxTimeout) {
+        this.latencyTracker = latencyTracker;
+        this.percentile = percentile;
+        this.factor = factor;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    /**
+     * Records a task that timed out, as having taken its timeout.
+     */
+    public void record(String latencyClass, long executionNanos) {
+        if (latencyClass != null) {
+            latencyTracker.record(latencyClass, executionNanos);
+        }
+    }
+
+    /**
+     * @param defaultTimeout
+     *            in milliseconds
+     * @return the timeout, in milliseconds, for a task of the given class, or
+     *         <code>defaultTimeout</code> if too few tasks of the class have
+     *         completed yet
+     */
+    public long getTimeout(String latencyClass, long defaultTimeout) {
+        if (latencyClass == null) {
+            return defaultTimeout;
+        }
+        long executionNanos = latencyTracker.getPercentile(latencyClass, percentile);
+        if (executionNanos < 0L) {
+            return defaultTimeout;
+        }
+        long timeout = (long) (TimeUnit.NANOSECONDS.toMillis(executionNanos) * factor);
+        return Math.max(minTimeout, Math.min(timeout, maxTimeout));
+    }
+
+}
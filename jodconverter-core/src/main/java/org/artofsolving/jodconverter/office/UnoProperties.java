@@ -0,0 +1,80 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.sun.star.beans.PropertyValue;
+
+/**
+ * UNO properties converted from a property map once, so that they can be
+ * passed to office by any number of tasks without rebuilding the
+ * {@link PropertyValue}s each time.
+ * <p>
+ * Immutable: {@link #with(String, Object)} returns a copy, and
+ * {@link #toArray()} a new array on every call. The {@link PropertyValue}s
+ * themselves are shared, so they must not be modified by whoever receives
+ * the array; UNO calls only read them.
+ */
+public final class UnoProperties {
+
+    public static final UnoProperties EMPTY = new UnoProperties(new PropertyValue[0]);
+
+    private final PropertyValue[] propertyValues;
+
+    private UnoProperties(PropertyValue[] propertyValues) {
+        this.propertyValues = propertyValues;
+    }
+
+    /**
+     * @param properties
+     *            converted as by {@link OfficeUtils#toUnoProperties(Map)};
+     *            may be <code>null</code>
+     */
+    public static UnoProperties compile(Map<String, ?> properties) {
+        if (properties == null || properties.isEmpty()) {
+            return EMPTY;
+        }
+        return new UnoProperties(OfficeUtils.toUnoProperties(properties));
+    }
+
+    /**
+     * Overlays a per-task property, e.g. a stream, without touching these
+     * properties.
+     * 
+     * @return a copy with the property replaced, or appended if absent
+     */
+    public UnoProperties with(String name, Object value) {
+        PropertyValue property = OfficeUtils.property(name, value);
+        for (int i = 0; i < propertyValues.length; i++) {
+            if (propertyValues[i].Name.equals(name)) {
+                PropertyValue[] overlaid = propertyValues.clone();
+                overlaid[i] = property;
+                return new UnoProperties(overlaid);
+            }
+        }
+        PropertyValue[] overlaid = Arrays.copyOf(propertyValues, propertyValues.length + 1);
+        overlaid[propertyValues.length] = property;
+        return new UnoProperties(overlaid);
+    }
+
+    public PropertyValue[] toArray() {
+        return propertyValues.clone();
+    }
+
+    public int size() {
+        return propertyValues.length;
+    }
+
+}
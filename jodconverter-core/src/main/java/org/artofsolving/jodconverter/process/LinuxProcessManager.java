@@ -12,11 +12,13 @@
 //
 package org.artofsolving.jodconverter.process;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 /**
@@ -26,10 +28,20 @@ import org.apache.commons.io.IOUtils;
  * Should Work on Solaris too, except that the command line string
  * returned by <tt>ps</tt> there is limited to 80 characters and this affects
  * {@link #findPid(String)}.
+ * <p>
+ * Resource usage is read from <tt>/proc/&lt;pid&gt;/status</tt> and
+ * <tt>/proc/&lt;pid&gt;/stat</tt>.
  */
 public class LinuxProcessManager implements ProcessManager {
 
     private static final Pattern PS_OUTPUT_LINE = Pattern.compile("^\\s*(\\d+)\\s+(.*)$"); 
+    private static final Pattern STATUS_VM_RSS_LINE = Pattern.compile("^VmRSS:\\s+(\\d+)\\s+kB", Pattern.MULTILINE);
+
+    /**
+     * <tt>USER_HZ</tt>, the unit of the times in <tt>/proc/&lt;pid&gt;/stat</tt>;
+     * 100 on all common architectures.
+     */
+    private static final long CLOCK_TICKS_PER_SECOND = 100L;
 
     private String[] runAsArgs;
 
@@ -64,6 +76,46 @@ public class LinuxProcessManager implements ProcessManager {
         execute("/bin/kill", "-KILL", Long.toString(pid));
     }
 
+    @Override
+    public ProcessUsage getUsage(long pid) throws IOException {
+        File procDir = new File("/proc", Long.toString(pid));
+        if (!procDir.isDirectory()) {
+            return null;
+        }
+        String status = FileUtils.readFileToString(new File(procDir, "status"));
+        String stat = FileUtils.readFileToString(new File(procDir, "stat"));
+        return new ProcessUsage(parseResidentMemory(status), parseCpuTime(stat));
+    }
+
+    /**
+     * @return in bytes
+     */
+    static long parseResidentMemory(String status) throws IOException {
+        Matcher matcher = STATUS_VM_RSS_LINE.matcher(status);
+        if (!matcher.find()) {
+            throw new IOException("no VmRSS in process status");
+        }
+        return Long.parseLong(matcher.group(1)) * 1024L;
+    }
+
+    /**
+     * @return utime plus stime, in milliseconds
+     */
+    static long parseCpuTime(String stat) throws IOException {
+        // the command name in parentheses may itself contain spaces
+        int commandEnd = stat.lastIndexOf(')');
+        if (commandEnd < 0) {
+            throw new IOException("unexpected process stat format");
+        }
+        // fields now start at the state, i.e. field 3; utime and stime are 14 and 15
+        String[] fields = stat.substring(commandEnd + 1).trim().split("\\s+");
+        if (fields.length < 13) {
+            throw new IOException("unexpected process stat format");
+        }
+        long clockTicks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+        return clockTicks * 1000L / CLOCK_TICKS_PER_SECOND;
+    }
+
     private List<String> execute(String... args) throws IOException {
     	String[] command;
     	if (runAsArgs != null) {
@@ -29,4 +29,14 @@ public interface ProcessManager {
      */
     long findPid(ProcessQuery query) throws IOException;
 
+    /**
+     * @param pid
+     * @return the current resource usage of the process, or <code>null</code>
+     *         if this implementation is unable to find out
+     * @throws IOException
+     */
+    default ProcessUsage getUsage(long pid) throws IOException {
+        return null;
+    }
+
 }
@@ -0,0 +1,49 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.process;
+
+/**
+ * Resource usage of a process as sampled by
+ * {@link ProcessManager#getUsage(long)}.
+ */
+public class ProcessUsage {
+
+    private final long residentMemory;
+    private final long cpuTime;
+
+    /**
+     * @param residentMemory
+     *            in bytes
+     * @param cpuTime
+     *            user plus system time since the process started, in
+     *            milliseconds
+     */
+    public ProcessUsage(long residentMemory, long cpuTime) {
+        this.residentMemory = residentMemory;
+        this.cpuTime = cpuTime;
+    }
+
+    public long getResidentMemory() {
+        return residentMemory;
+    }
+
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rss %d MB, cpu %d ms", residentMemory / (1024 * 1024), cpuTime);
+    }
+
+}
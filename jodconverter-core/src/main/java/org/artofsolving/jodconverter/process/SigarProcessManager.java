@@ -155,6 +155,18 @@ public class SigarProcessManager implements ProcessManager {
 		}
 	}
 
+	@Override
+	public ProcessUsage getUsage(long pid) throws IOException {
+		Sigar sigar = new Sigar();
+		try {
+			return new ProcessUsage(sigar.getProcMem(pid).getResident(), sigar.getProcCpu(pid).getTotal());
+		} catch (SigarException sigarException) {
+			throw new IOException("getUsage " + pid + ": failed", sigarException);
+		} finally {
+			sigar.close();
+		}
+	}
+
 	private boolean argumentMatches(String[] arguments, String expected) {
 		for (String argument : arguments) {
 			if (argument.contains(expected)) {
@@ -0,0 +1,64 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+@Test
+public class BatchConversionTest {
+
+    public void resultsInRequestOrderWithFailures() throws Exception {
+        File directory = TestFileUtils.createTempDirectory("batch");
+        try {
+            OfficeDocumentConverter converter = new OfficeDocumentConverter(new FakeOfficeManager());
+            converter.setBatchWindow(2);
+            List<ConversionRequest> requests = new ArrayList<ConversionRequest>();
+            for (int i = 0; i < 5; i++) {
+                requests.add(new ConversionRequest(new File(directory, "input" + i + ".odt"), new File(directory,
+                        "output" + i + ".pdf")));
+            }
+            File inputFile = new File(directory, "input.odt");
+            requests.add(new ConversionRequest(inputFile, new File(directory, "fail.pdf")));
+            requests.add(new ConversionRequest(inputFile, new File(directory, "output.unknown")));
+            final List<ConversionResult> delivered = new ArrayList<ConversionResult>();
+            List<ConversionResult> results = converter.convertAll(requests, new Consumer<ConversionResult>() {
+                public void accept(ConversionResult result) {
+                    delivered.add(result);
+                }
+            });
+            assertEquals(results.size(), requests.size());
+            assertEquals(delivered.size(), requests.size());
+            for (int i = 0; i < 5; i++) {
+                assertTrue(results.get(i).isSuccessful());
+                assertEquals(results.get(i).getRequest(), requests.get(i));
+                assertTrue(requests.get(i).getOutputFile().isFile());
+            }
+            assertFalse(results.get(5).isSuccessful());
+            assertEquals(results.get(5).getFailure().getMessage(), "conversion failed");
+            assertFalse(results.get(6).isSuccessful());
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+}
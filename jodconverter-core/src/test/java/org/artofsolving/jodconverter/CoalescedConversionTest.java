@@ -0,0 +1,81 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+@Test
+public class CoalescedConversionTest {
+
+    public void duplicatesShareOneConversion() throws Exception {
+        File directory = TestFileUtils.createTempDirectory("coalesced");
+        try {
+            File inputFile = new File(directory, "input.odt");
+            FileUtils.writeStringToFile(inputFile, "input");
+            FakeOfficeManager officeManager = new FakeOfficeManager();
+            officeManager.holdConversions();
+            OfficeDocumentConverter converter = new OfficeDocumentConverter(officeManager);
+            converter.setCoalesceDuplicates(true);
+            CompletableFuture<Void> first = converter.convertAsync(inputFile, new File(directory, "first.pdf"));
+            CompletableFuture<Void> second = converter.convertAsync(inputFile, new File(directory, "second.pdf"));
+            CompletableFuture<Void> other = converter.convertAsync(inputFile, new File(directory, "other.odt"));
+            assertEquals(officeManager.getHeldConversionCount(), 2);
+            assertEquals(converter.getCoalescedConversionCount(), 1L);
+
+            officeManager.complete(0);
+            first.get();
+            second.get();
+            assertEquals(FileUtils.readFileToString(new File(directory, "second.pdf")), "converted");
+            assertFalse(other.isDone());
+
+            // no longer in progress
+            CompletableFuture<Void> third = converter.convertAsync(inputFile, new File(directory, "third.pdf"));
+            assertEquals(officeManager.getHeldConversionCount(), 3);
+            assertFalse(third.isDone());
+            assertTrue(second.isDone());
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    public void cancelledConversionGoesOnForDuplicates() throws Exception {
+        File directory = TestFileUtils.createTempDirectory("coalesced");
+        try {
+            File inputFile = new File(directory, "input.odt");
+            FileUtils.writeStringToFile(inputFile, "input");
+            FakeOfficeManager officeManager = new FakeOfficeManager();
+            officeManager.holdConversions();
+            OfficeDocumentConverter converter = new OfficeDocumentConverter(officeManager);
+            converter.setCoalesceDuplicates(true);
+            CompletableFuture<Void> first = converter.convertAsync(inputFile, new File(directory, "first.pdf"));
+            CompletableFuture<Void> second = converter.convertAsync(inputFile, new File(directory, "second.pdf"));
+            first.cancel(true);
+            assertFalse(officeManager.getHeldConversion(0).isCancelled());
+
+            officeManager.complete(0);
+            second.get();
+            assertTrue(new File(directory, "second.pdf").isFile());
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+}
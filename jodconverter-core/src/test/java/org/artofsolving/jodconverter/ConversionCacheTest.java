@@ -0,0 +1,100 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
+import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
+import org.testng.annotations.Test;
+
+@Test
+public class ConversionCacheTest {
+
+    public void putAndGet() throws IOException {
+        File directory = TestFileUtils.createTempDirectory("conversioncache");
+        try {
+            ConversionCache cache = new ConversionCache(new File(directory, "cache"), 1000L);
+            File outputFile = new File(directory, "output.pdf");
+            assertFalse(cache.get("a", outputFile));
+            cache.put("a", createFile(directory, "result", 10));
+            assertTrue(cache.get("a", outputFile));
+            assertEquals(outputFile.length(), 10L);
+            assertEquals(cache.getHitCount(), 1L);
+            assertEquals(cache.getMissCount(), 1L);
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    public void evictsLeastRecentlyUsed() throws IOException {
+        File directory = TestFileUtils.createTempDirectory("conversioncache");
+        try {
+            ConversionCache cache = new ConversionCache(new File(directory, "cache"), 25L);
+            File outputFile = new File(directory, "output.pdf");
+            cache.put("a", createFile(directory, "a", 10));
+            cache.put("b", createFile(directory, "b", 10));
+            assertTrue(cache.get("a", outputFile));
+            cache.put("c", createFile(directory, "c", 10));
+            assertEquals(cache.getEntryCount(), 2);
+            assertEquals(cache.getSize(), 20L);
+            assertTrue(cache.get("a", outputFile));
+            assertFalse(cache.get("b", outputFile));
+            assertTrue(cache.get("c", outputFile));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    public void indexRebuiltOnStartup() throws IOException {
+        File directory = TestFileUtils.createTempDirectory("conversioncache");
+        try {
+            File cacheDirectory = new File(directory, "cache");
+            new ConversionCache(cacheDirectory, 1000L).put("a", createFile(directory, "a", 10));
+            createFile(cacheDirectory, ".tmp-leftover", 10);
+            ConversionCache cache = new ConversionCache(cacheDirectory, 1000L);
+            assertEquals(cache.getEntryCount(), 1);
+            assertEquals(cache.getSize(), 10L);
+            assertFalse(new File(cacheDirectory, ".tmp-leftover").exists());
+            assertTrue(cache.get("a", new File(directory, "output.pdf")));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    public void keyDependsOnFormatAndProperties() {
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        String pdfKey = ConversionCache.createKey("fingerprint", registry.getFormatByExtension("pdf"),
+                Collections.singletonMap("Hidden", true));
+        assertEquals(ConversionCache.createKey("fingerprint", registry.getFormatByExtension("pdf"),
+                Collections.singletonMap("Hidden", true)), pdfKey);
+        assertFalse(ConversionCache.createKey("fingerprint", registry.getFormatByExtension("odt"),
+                Collections.singletonMap("Hidden", true)).equals(pdfKey));
+        assertFalse(ConversionCache.createKey("fingerprint", registry.getFormatByExtension("pdf"),
+                Collections.singletonMap("Hidden", false)).equals(pdfKey));
+    }
+
+    private static File createFile(File directory, String name, int length) throws IOException {
+        File file = new File(directory, name);
+        FileUtils.writeStringToFile(file, new String(new char[length]).replace('\0', 'x'));
+        return file;
+    }
+
+}
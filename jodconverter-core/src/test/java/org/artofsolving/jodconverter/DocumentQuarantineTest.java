@@ -0,0 +1,49 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test
+public class DocumentQuarantineTest {
+
+    public void quarantinedAfterMaxAborts() {
+        DocumentQuarantine quarantine = new DocumentQuarantine(2, 60000L);
+        assertFalse(quarantine.recordAbort("a"));
+        assertFalse(quarantine.isQuarantined("a"));
+        assertTrue(quarantine.recordAbort("a"));
+        assertTrue(quarantine.isQuarantined("a"));
+        assertFalse(quarantine.isQuarantined("b"));
+        assertEquals(quarantine.getQuarantinedDocuments().keySet().iterator().next(), "a");
+    }
+
+    public void successForgetsAborts() {
+        DocumentQuarantine quarantine = new DocumentQuarantine(2, 60000L);
+        quarantine.recordAbort("a");
+        quarantine.recordSuccess("a");
+        assertFalse(quarantine.recordAbort("a"));
+    }
+
+    public void releasedAfterTtl() throws InterruptedException {
+        DocumentQuarantine quarantine = new DocumentQuarantine(1, 50L);
+        assertTrue(quarantine.recordAbort("a"));
+        Thread.sleep(100L);
+        assertFalse(quarantine.isQuarantined("a"));
+        assertTrue(quarantine.getQuarantinedDocuments().isEmpty());
+    }
+
+}
@@ -0,0 +1,92 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.io.FileUtils;
+import org.artofsolving.jodconverter.office.OfficeException;
+import org.artofsolving.jodconverter.office.OfficeManager;
+import org.artofsolving.jodconverter.office.OfficeTask;
+
+/**
+ * Pretends to convert by writing "converted" to the output file of a
+ * conversion task, failing conversions to files named "fail.*". Once
+ * {@link #holdConversions()} has been called, asynchronous conversions keep
+ * running until told to {@link #complete(int)}.
+ */
+public class FakeOfficeManager implements OfficeManager {
+
+    private final List<AbstractConversionTask> tasks = new ArrayList<AbstractConversionTask>();
+    private final List<CompletableFuture<Void>> executions = new ArrayList<CompletableFuture<Void>>();
+    private boolean holdConversions;
+
+    public void holdConversions() {
+        holdConversions = true;
+    }
+
+    /**
+     * @return the number of conversions held so far
+     */
+    public int getHeldConversionCount() {
+        return executions.size();
+    }
+
+    public CompletableFuture<Void> getHeldConversion(int index) {
+        return executions.get(index);
+    }
+
+    public void complete(int index) throws OfficeException {
+        execute(tasks.get(index));
+        executions.get(index).complete(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> executeAsync(OfficeTask task) {
+        if (!holdConversions) {
+            return OfficeManager.super.executeAsync(task);
+        }
+        CompletableFuture<Void> execution = new CompletableFuture<Void>();
+        tasks.add((AbstractConversionTask) task);
+        executions.add(execution);
+        return execution;
+    }
+
+    public void execute(OfficeTask task) throws OfficeException {
+        AbstractConversionTask conversionTask = (AbstractConversionTask) task;
+        if (conversionTask.getOutputFile().getName().startsWith("fail")) {
+            throw new OfficeException("conversion failed");
+        }
+        try {
+            FileUtils.writeStringToFile(conversionTask.getOutputFile(), "converted");
+        } catch (IOException ioException) {
+            throw new OfficeException("could not write output file", ioException);
+        }
+    }
+
+    public void start() throws OfficeException {
+        // nothing to start
+    }
+
+    public void stop() throws OfficeException {
+        // nothing to stop
+    }
+
+    public boolean isRunning() {
+        return true;
+    }
+
+}
@@ -0,0 +1,69 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
+import org.testng.annotations.Test;
+
+@Test
+public class MultiConversionTaskTest {
+
+    public void targetStorePropertiesOverrideFormat() {
+        DocumentFormat pdf = new DefaultDocumentFormatRegistry().getFormatByExtension("pdf");
+        Map<String,?> filterData = Collections.singletonMap("PageRange", "1");
+        ConversionTarget firstPage = new ConversionTarget(new File("first.pdf"), pdf, Collections.singletonMap(
+                "FilterData", filterData));
+        ConversionTarget plain = new ConversionTarget(new File("plain.pdf"), pdf);
+        MultiConversionTask task = new MultiConversionTask(new File("input.odt"), Arrays.asList(firstPage, plain));
+
+        Map<String,?> storeProperties = task.getStoreProperties(firstPage, DocumentFamily.TEXT);
+        assertEquals(storeProperties.get("FilterName"), "writer_pdf_Export");
+        assertEquals(storeProperties.get("FilterData"), filterData);
+        assertNull(pdf.getStoreProperties(DocumentFamily.TEXT).get("FilterData"));
+        assertSame(task.getStoreProperties(plain, DocumentFamily.TEXT), pdf.getStoreProperties(DocumentFamily.TEXT));
+    }
+
+    public void unsupportedFamilyIsNotOverridden() {
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        ConversionTarget target = new ConversionTarget(new File("output.odt"), registry.getFormatByExtension("odt"),
+                Collections.singletonMap("Overwrite", Boolean.TRUE));
+        MultiConversionTask task = new MultiConversionTask(new File("input.xls"), Collections.singletonList(target));
+        assertNull(task.getStoreProperties(target, DocumentFamily.SPREADSHEET));
+    }
+
+    public void unknownOutputFormatIsRejected() {
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        ConversionTarget pdf = new ConversionTarget(new File("output.pdf"), registry.getFormatByExtension("pdf"));
+        ConversionTarget unknown = new ConversionTarget(new File("output.xyz"), registry.getFormatByExtension("xyz"));
+        try {
+            new MultiConversionTask(new File("input.odt"), Arrays.asList(pdf, unknown));
+            fail("unknown output format accepted");
+        } catch (IllegalArgumentException illegalArgumentException) {
+            assertEquals(illegalArgumentException.getMessage(), "unknown output format: output.xyz");
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.artofsolving.jodconverter.office.OfficeUtils.toUnoProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
+
+public class PrecompiledPropertiesBenchmark {
+
+    /**
+     * Compares building the UNO properties of a conversion from the property
+     * maps, as done for every task before, with using precompiled ones, with
+     * the default load properties of {@link OfficeDocumentConverter}.
+     */
+    public static void main(String[] args) {
+        Map<String,?> defaultLoadProperties = OfficeDocumentConverter.createDefaultLoadProperties();
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        DocumentFormat inputFormat = registry.getFormatByExtension("txt");
+        DocumentFormat outputFormat = registry.getFormatByExtension("pdf");
+        PrecompiledProperties precompiled = new PrecompiledProperties(defaultLoadProperties, registry);
+        int iterations = 1000000;
+        for (int run = 0; run < 5; run++) {
+            long startTime = System.nanoTime();
+            int count = 0;
+            for (int i = 0; i < iterations; i++) {
+                Map<String,Object> loadProperties = new HashMap<String,Object>(defaultLoadProperties);
+                loadProperties.putAll(inputFormat.getLoadProperties());
+                count += toUnoProperties(loadProperties).length;
+                count += toUnoProperties(outputFormat.getStoreProperties(DocumentFamily.TEXT)).length;
+            }
+            long mapTime = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                count += precompiled.getLoadProperties(inputFormat).toArray().length;
+                count += precompiled.getStoreProperties(outputFormat, DocumentFamily.TEXT).toArray().length;
+            }
+            long precompiledTime = System.nanoTime() - startTime;
+            System.out.printf("maps: %d ns/conversion, precompiled: %d ns/conversion (%d)%n", mapTime / iterations,
+                    precompiledTime / iterations, count);
+        }
+    }
+
+}
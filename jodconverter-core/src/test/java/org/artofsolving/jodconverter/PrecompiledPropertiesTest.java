@@ -0,0 +1,124 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.artofsolving.jodconverter.office.OfficeUtils.toUnoProperties;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormat;
+import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
+import org.artofsolving.jodconverter.office.UnoProperties;
+import org.testng.annotations.Test;
+
+import com.sun.star.beans.PropertyValue;
+
+@Test
+public class PrecompiledPropertiesTest {
+
+    static final Map<String,?> DEFAULT_LOAD_PROPERTIES = Collections.singletonMap("Hidden", Boolean.TRUE);
+
+    public void loadPropertiesMergedWithInputFormat() {
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        PrecompiledProperties precompiled = new PrecompiledProperties(DEFAULT_LOAD_PROPERTIES, registry);
+        DocumentFormat txt = registry.getFormatByExtension("txt");
+        Map<String,Object> expected = new HashMap<String,Object>(DEFAULT_LOAD_PROPERTIES);
+        expected.putAll(txt.getLoadProperties());
+        assertEquals(toMap(precompiled.getLoadProperties(txt).toArray()), toMap(toUnoProperties(expected)));
+        assertSame(precompiled.getLoadProperties(txt), precompiled.getLoadProperties(txt));
+        assertEquals(toMap(precompiled.getLoadProperties(null).toArray()).keySet(), DEFAULT_LOAD_PROPERTIES.keySet());
+    }
+
+    public void storePropertiesByFamily() {
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        PrecompiledProperties precompiled = new PrecompiledProperties(DEFAULT_LOAD_PROPERTIES, registry);
+        DocumentFormat pdf = registry.getFormatByExtension("pdf");
+        UnoProperties storeProperties = precompiled.getStoreProperties(pdf, DocumentFamily.TEXT);
+        assertEquals(toMap(storeProperties.toArray()).get("FilterName"), "writer_pdf_Export");
+        assertNull(precompiled.getStoreProperties(registry.getFormatByExtension("odt"), DocumentFamily.SPREADSHEET));
+    }
+
+    public void changedFormatIsCompiledPerTask() {
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        PrecompiledProperties precompiled = new PrecompiledProperties(DEFAULT_LOAD_PROPERTIES, registry);
+        DocumentFormat pdf = registry.getFormatByExtension("pdf");
+        assertSame(precompiled.getStoreProperties(pdf, DocumentFamily.TEXT),
+                precompiled.getStoreProperties(pdf, DocumentFamily.TEXT));
+        // replaces the entry of the existing map
+        pdf.setStoreProperties(DocumentFamily.TEXT, Collections.singletonMap("FilterName", "changed"));
+        assertEquals(toMap(precompiled.getStoreProperties(pdf, DocumentFamily.TEXT).toArray()).get("FilterName"),
+                "changed");
+        assertFalse(precompiled.getStoreProperties(pdf, DocumentFamily.TEXT) == precompiled.getStoreProperties(pdf,
+                DocumentFamily.TEXT));
+
+        DocumentFormat txt = registry.getFormatByExtension("txt");
+        Map<String,Object> loadProperties = new HashMap<String,Object>(txt.getLoadProperties());
+        loadProperties.put("FilterOptions", "changed");
+        txt.setLoadProperties(loadProperties);
+        assertEquals(toMap(precompiled.getLoadProperties(txt).toArray()).get("FilterOptions"), "changed");
+        assertEquals(toMap(precompiled.getLoadProperties(txt).toArray()).get("Hidden"), Boolean.TRUE);
+    }
+
+    public void unregisteredFormatIsNotStored() {
+        PrecompiledProperties precompiled = new PrecompiledProperties(DEFAULT_LOAD_PROPERTIES,
+                new DefaultDocumentFormatRegistry());
+        DocumentFormat adHoc = new DocumentFormat("Ad hoc", "adhoc", "application/x-adhoc");
+        adHoc.setLoadProperties(Collections.singletonMap("FilterName", "adhoc"));
+        adHoc.setStoreProperties(DocumentFamily.TEXT, Collections.singletonMap("FilterName", "adhoc"));
+        assertEquals(toMap(precompiled.getLoadProperties(adHoc).toArray()).get("FilterName"), "adhoc");
+        assertFalse(precompiled.getLoadProperties(adHoc) == precompiled.getLoadProperties(adHoc));
+        assertEquals(toMap(precompiled.getStoreProperties(adHoc, DocumentFamily.TEXT).toArray()).get("FilterName"),
+                "adhoc");
+        assertNull(precompiled.getStoreProperties(adHoc, DocumentFamily.DRAWING));
+    }
+
+    public void defaultsAreCopied() {
+        Map<String,Object> defaultLoadProperties = new HashMap<String,Object>(DEFAULT_LOAD_PROPERTIES);
+        DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+        PrecompiledProperties precompiled = new PrecompiledProperties(defaultLoadProperties, registry);
+        defaultLoadProperties.put("Hidden", Boolean.FALSE);
+        assertEquals(toMap(precompiled.getLoadProperties(null).toArray()).get("Hidden"), Boolean.TRUE);
+
+        // a format compiled per task is merged with the same defaults
+        DocumentFormat txt = registry.getFormatByExtension("txt");
+        txt.setLoadProperties(new HashMap<String,Object>(txt.getLoadProperties()));
+        assertEquals(toMap(precompiled.getLoadProperties(txt).toArray()).get("Hidden"), Boolean.TRUE);
+    }
+
+    public void overlayLeavesPrecompiledUntouched() {
+        UnoProperties properties = UnoProperties.compile(DEFAULT_LOAD_PROPERTIES);
+        UnoProperties overlaid = properties.with("InputStream", "stream").with("Hidden", Boolean.FALSE);
+        assertEquals(properties.size(), 1);
+        assertEquals(toMap(properties.toArray()).get("Hidden"), Boolean.TRUE);
+        assertEquals(overlaid.size(), 2);
+        assertEquals(toMap(overlaid.toArray()).get("Hidden"), Boolean.FALSE);
+        assertFalse(properties.toArray() == properties.toArray());
+    }
+
+    private static Map<String,Object> toMap(PropertyValue[] propertyValues) {
+        Map<String,Object> map = new HashMap<String,Object>();
+        for (PropertyValue propertyValue : propertyValues) {
+            map.put(propertyValue.Name, propertyValue.Value);
+        }
+        return map;
+    }
+
+}
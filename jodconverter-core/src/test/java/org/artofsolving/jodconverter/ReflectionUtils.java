@@ -30,4 +30,14 @@ public class ReflectionUtils {
         return field.get(instance);
     }
 
+    public static void setPrivateField(Object instance, String fieldName, Object value) throws SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException {
+        setPrivateField(instance.getClass(), instance, fieldName, value);
+    }
+
+    public static void setPrivateField(Class<?> type, Object instance, String fieldName, Object value) throws SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException {
+        Field field = type.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(instance, value);
+    }
+
 }
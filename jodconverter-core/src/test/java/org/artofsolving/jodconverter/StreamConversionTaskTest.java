@@ -0,0 +1,97 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.artofsolving.jodconverter.document.DefaultDocumentFormatRegistry;
+import org.artofsolving.jodconverter.document.DocumentFamily;
+import org.artofsolving.jodconverter.document.DocumentFormatRegistry;
+import org.testng.annotations.Test;
+
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.lib.uno.adapter.ByteArrayToXInputStreamAdapter;
+import com.sun.star.lib.uno.adapter.OutputStreamToXOutputStreamAdapter;
+
+@Test
+public class StreamConversionTaskTest {
+
+    private final DocumentFormatRegistry registry = new DefaultDocumentFormatRegistry();
+
+    public void loadPropertiesOverlaidWithInputStream() {
+        StreamConversionTask task = createTask();
+        task.setDefaultLoadProperties(PrecompiledPropertiesTest.DEFAULT_LOAD_PROPERTIES);
+        Map<String,?> loadProperties = task.getLoadProperties(null);
+        assertEquals(loadProperties.get("Hidden"), Boolean.TRUE);
+        assertEquals(loadProperties.get("FilterName"), registry.getFormatByExtension("txt").getLoadProperties()
+                .get("FilterName"));
+        assertTrue(loadProperties.get("InputStream") instanceof ByteArrayToXInputStreamAdapter);
+        assertFalse(PrecompiledPropertiesTest.DEFAULT_LOAD_PROPERTIES.containsKey("InputStream"));
+    }
+
+    public void storePropertiesOverlaidWithOutputStream() {
+        Map<String,?> storeProperties = createTask().getStoreProperties(DocumentFamily.TEXT);
+        assertEquals(storeProperties.get("FilterName"), "writer_pdf_Export");
+        assertTrue(storeProperties.get("OutputStream") instanceof OutputStreamToXOutputStreamAdapter);
+        assertFalse(registry.getFormatByExtension("pdf").getStoreProperties(DocumentFamily.TEXT)
+                .containsKey("OutputStream"));
+        assertNull(createTask().getStoreProperties(DocumentFamily.SPREADSHEET));
+    }
+
+    public void callerOutputStreamIsNotClosed() throws Exception {
+        final boolean[] closed = new boolean[1];
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        StreamConversionTask task = new StreamConversionTask(new byte[] { 'a' }, registry.getFormatByExtension("txt"),
+                outputStream, registry.getFormatByExtension("pdf"));
+        OutputStreamToXOutputStreamAdapter adapter = (OutputStreamToXOutputStreamAdapter) task.getStoreProperties(
+                DocumentFamily.TEXT).get("OutputStream");
+        adapter.writeBytes(new byte[] { 'b' });
+        adapter.flush();
+        adapter.closeOutput();
+        assertFalse(closed[0]);
+        assertEquals(outputStream.toByteArray(), new byte[] { 'b' });
+    }
+
+    public void precompiledLoadPropertiesOverlaidWithInputStream() {
+        StreamConversionTask task = createTask();
+        PrecompiledProperties precompiledProperties = new PrecompiledProperties(
+                PrecompiledPropertiesTest.DEFAULT_LOAD_PROPERTIES, registry);
+        task.setPrecompiledProperties(precompiledProperties);
+        Map<String,Object> loadProperties = new HashMap<String,Object>();
+        for (PropertyValue propertyValue : task.getUnoLoadProperties(null)) {
+            loadProperties.put(propertyValue.Name, propertyValue.Value);
+        }
+        assertEquals(loadProperties.get("Hidden"), Boolean.TRUE);
+        assertTrue(loadProperties.get("InputStream") instanceof ByteArrayToXInputStreamAdapter);
+        assertEquals(precompiledProperties.getLoadProperties(registry.getFormatByExtension("txt")).toArray().length,
+                loadProperties.size() - 1);
+    }
+
+    private StreamConversionTask createTask() {
+        return new StreamConversionTask(new byte[] { 'a' }, registry.getFormatByExtension("txt"),
+                new ByteArrayOutputStream(), registry.getFormatByExtension("pdf"));
+    }
+
+}
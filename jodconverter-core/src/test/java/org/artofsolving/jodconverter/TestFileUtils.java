@@ -0,0 +1,33 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter;
+
+import java.io.File;
+
+public class TestFileUtils {
+
+    private TestFileUtils() {
+        throw new AssertionError("utility class must not be instantiated");
+    }
+
+    /**
+     * @return a new, empty directory in the system temporary directory, to
+     *         be deleted by the caller
+     */
+    public static File createTempDirectory(String prefix) {
+        File directory = new File(System.getProperty("java.io.tmpdir"), prefix + "-" + System.nanoTime());
+        directory.mkdirs();
+        return directory;
+    }
+
+}
@@ -0,0 +1,103 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.artofsolving.jodconverter.ReflectionUtils;
+import org.testng.annotations.Test;
+
+@Test
+public class CancelledTaskReleaseTest {
+
+    /**
+     * Runs until told to finish, ignoring interrupts like a UNO call does.
+     */
+    private static class BlockingTask implements OfficeTask {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finish = new CountDownLatch(1);
+
+        public void execute(OfficeContext context) throws OfficeException {
+            started.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finish.await();
+                    break;
+                } catch (InterruptedException interruptedException) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    public void overrunningCancelledTaskHoldsManagerUntilRestarted() throws Exception {
+        PooledOfficeManager manager = createManager();
+        OfficeConnectionEventListener connectionEventListener = (OfficeConnectionEventListener) ReflectionUtils
+                .getPrivateField(manager, "connectionEventListener");
+        connectionEventListener.connected(null);
+
+        BlockingTask cancelledTask = new BlockingTask();
+        CompletableFuture<Void> released = new CompletableFuture<Void>();
+        CompletableFuture<Void> result = manager.executeAsync(cancelledTask, released);
+        assertTrue(cancelledTask.started.await(5L, TimeUnit.SECONDS));
+        result.cancel(true);
+
+        // past the grace period the process is restarted, which the queued
+        // task must not be handed
+        Thread.sleep(1500L);
+        assertFalse(released.isDone());
+        cancelledTask.finish.countDown();
+        Thread.sleep(100L);
+        assertFalse(released.isDone());
+
+        connectionEventListener.connected(null);
+        assertTrue(released.isDone());
+        BlockingTask queuedTask = new BlockingTask();
+        queuedTask.finish.countDown();
+        manager.executeAsync(queuedTask).get(5L, TimeUnit.SECONDS);
+    }
+
+    public void cancelledTaskReturningInTimeReleasesManager() throws Exception {
+        PooledOfficeManager manager = createManager();
+        ((OfficeConnectionEventListener) ReflectionUtils.getPrivateField(manager, "connectionEventListener"))
+                .connected(null);
+
+        BlockingTask cancelledTask = new BlockingTask();
+        CompletableFuture<Void> released = new CompletableFuture<Void>();
+        CompletableFuture<Void> result = manager.executeAsync(cancelledTask, released);
+        assertTrue(cancelledTask.started.await(5L, TimeUnit.SECONDS));
+        result.cancel(true);
+        assertFalse(released.isDone());
+        cancelledTask.finish.countDown();
+        released.get(5L, TimeUnit.SECONDS);
+    }
+
+    private PooledOfficeManager createManager() {
+        PooledOfficeManagerSettings settings = new PooledOfficeManagerSettings(UnoUrl.socket(2010));
+        settings.setOfficeHome(new File(System.getProperty("java.io.tmpdir")));
+        return new PooledOfficeManager(settings);
+    }
+
+}
@@ -0,0 +1,58 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test
+public class CircuitBreakerTest {
+
+    public void opensOnceFailureRateIsReached() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5);
+        for (int i = 0; i < CircuitBreaker.MIN_SAMPLES - 1; i++) {
+            assertFalse(circuitBreaker.recordOutcome(true));
+        }
+        assertTrue(circuitBreaker.recordOutcome(true));
+        assertTrue(circuitBreaker.isOpen());
+        // only reported once
+        assertFalse(circuitBreaker.recordOutcome(true));
+    }
+
+    public void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.9);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordOutcome(true);
+        }
+        for (int i = 0; i < CircuitBreaker.WINDOW_SIZE; i++) {
+            assertFalse(circuitBreaker.recordOutcome(false));
+        }
+        assertEquals(circuitBreaker.getFailureRate(), 0.0);
+        assertFalse(circuitBreaker.isOpen());
+    }
+
+    public void resetClosesTheCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1.0);
+        for (int i = 0; i < CircuitBreaker.WINDOW_SIZE; i++) {
+            circuitBreaker.recordOutcome(true);
+        }
+        assertTrue(circuitBreaker.isOpen());
+        circuitBreaker.reset();
+        assertFalse(circuitBreaker.isOpen());
+        assertEquals(circuitBreaker.getFailureRate(), 0.0);
+    }
+
+}
@@ -0,0 +1,79 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.artofsolving.jodconverter.ReflectionUtils;
+import org.testng.annotations.Test;
+
+@Test
+public class DispatchPolicyTest {
+
+    public void roundRobinPicksLeastRecentlyDispatched() throws Exception {
+        PooledOfficeManager first = createManager(2010, 0, 0L);
+        PooledOfficeManager second = createManager(2011, 0, 0L);
+        first.setDispatchSequence(2L);
+        second.setDispatchSequence(1L);
+        assertSame(DispatchPolicy.ROUND_ROBIN.select(Arrays.asList(first, second)), second);
+    }
+
+    public void leastLoadedPicksFewestTasks() throws Exception {
+        PooledOfficeManager busy = createManager(2010, 7, 0L);
+        PooledOfficeManager quiet = createManager(2011, 2, 0L);
+        assertSame(DispatchPolicy.LEAST_LOADED.select(Arrays.asList(busy, quiet)), quiet);
+    }
+
+    public void leastRecentlyRestartedPicksOldestRestart() throws Exception {
+        PooledOfficeManager fresh = createManager(2010, 0, 2000L);
+        PooledOfficeManager old = createManager(2011, 0, 1000L);
+        assertSame(DispatchPolicy.LEAST_RECENTLY_RESTARTED.select(Arrays.asList(fresh, old)), old);
+    }
+
+    public void avoidsInstanceDueForRestart() throws Exception {
+        PooledOfficeManager dueForRestart = createManager(2010, 10, 0L);
+        PooledOfficeManager other = createManager(2011, 9, 0L);
+        dueForRestart.setDispatchSequence(1L);
+        other.setDispatchSequence(2L);
+        List<PooledOfficeManager> candidates = Arrays.asList(dueForRestart, other);
+        for (DispatchPolicy policy : DispatchPolicy.values()) {
+            assertSame(policy.select(candidates), other, policy.name());
+        }
+    }
+
+    public void affinityPrefersLastThenEarlierThenUnusedInstances() throws Exception {
+        PooledOfficeManager manager = createManager(2010, 0, 0L);
+        assertEquals(manager.getAffinity("TEXT"), 1);
+        manager.recordAffinityKey("TEXT");
+        manager.recordAffinityKey("SPREADSHEET");
+        assertEquals(manager.getAffinity("SPREADSHEET"), 3);
+        assertEquals(manager.getAffinity("TEXT"), 2);
+        assertEquals(manager.getAffinity("DRAWING"), 0);
+    }
+
+    private PooledOfficeManager createManager(int port, int taskCount, long lastRestartTime) throws Exception {
+        PooledOfficeManagerSettings settings = new PooledOfficeManagerSettings(UnoUrl.socket(port));
+        settings.setOfficeHome(new File(System.getProperty("java.io.tmpdir")));
+        settings.setMaxTasksPerProcess(10);
+        PooledOfficeManager manager = new PooledOfficeManager(settings);
+        ReflectionUtils.setPrivateField(manager, "taskCount", taskCount);
+        ReflectionUtils.setPrivateField(manager, "lastRestartTime", lastRestartTime);
+        return manager;
+    }
+
+}
@@ -0,0 +1,132 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiConsumer;
+
+/**
+ * Pretends to run an office process: tasks are not executed, but keep the
+ * instance busy until the test completes them.
+ */
+class FakePooledOfficeManager extends PooledOfficeManager {
+
+    private final List<OfficeTask> tasks = new ArrayList<OfficeTask>();
+    private final List<CompletableFuture<Void>> executions = new ArrayList<CompletableFuture<Void>>();
+    private volatile boolean running;
+    private volatile boolean stopped;
+    private volatile boolean restartDue;
+    private volatile int recycleCount;
+    private volatile CountDownLatch recycleGate;
+
+    public FakePooledOfficeManager(PooledOfficeManagerSettings settings) {
+        super(settings);
+    }
+
+    @Override
+    public void start() throws OfficeException {
+        running = true;
+    }
+
+    @Override
+    public void stop() throws OfficeException {
+        running = false;
+        stopped = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    boolean isRestartDue() {
+        return restartDue;
+    }
+
+    public void setRestartDue(boolean restartDue) {
+        this.restartDue = restartDue;
+    }
+
+    /**
+     * Makes {@link #recycleAndProbe()} wait until the latch is counted down.
+     */
+    public void setRecycleGate(CountDownLatch recycleGate) {
+        this.recycleGate = recycleGate;
+    }
+
+    @Override
+    void recycleAndProbe() throws OfficeException {
+        if (recycleGate != null) {
+            try {
+                recycleGate.await();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                throw new OfficeException("interrupted", interruptedException);
+            }
+        }
+        recycleCount++;
+    }
+
+    public int getRecycleCount() {
+        return recycleCount;
+    }
+
+    @Override
+    synchronized CompletableFuture<Void> executeAsync(OfficeTask task, final CompletableFuture<Void> released) {
+        CompletableFuture<Void> execution = new CompletableFuture<Void>();
+        tasks.add(task);
+        executions.add(execution);
+        execution.whenComplete(new BiConsumer<Void, Throwable>() {
+            public void accept(Void ignored, Throwable throwable) {
+                released.complete(null);
+            }
+        });
+        return execution;
+    }
+
+    public synchronized List<OfficeTask> getTasks() {
+        return new ArrayList<OfficeTask>(tasks);
+    }
+
+    /**
+     * @return whether a task is running
+     */
+    public synchronized boolean isBusy() {
+        return !executions.isEmpty() && !executions.get(executions.size() - 1).isDone();
+    }
+
+    /**
+     * Completes the running task, failing it if <code>failure</code> is not
+     * <code>null</code>.
+     */
+    public void completeTask(OfficeException failure) {
+        CompletableFuture<Void> execution;
+        synchronized (this) {
+            execution = executions.get(executions.size() - 1);
+        }
+        if (failure != null) {
+            execution.completeExceptionally(failure);
+        } else {
+            execution.complete(null);
+        }
+    }
+
+}
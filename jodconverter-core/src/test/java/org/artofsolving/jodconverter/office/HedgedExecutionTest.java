@@ -0,0 +1,87 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+@Test
+public class HedgedExecutionTest {
+
+    private static class AttemptRecorder implements HedgeableTask {
+
+        private final List<HedgeableTask> committed = new ArrayList<HedgeableTask>();
+        private final List<HedgeableTask> discarded = new ArrayList<HedgeableTask>();
+
+        public void execute(OfficeContext context) throws OfficeException {
+        }
+
+        public HedgeableTask createAttempt() {
+            return new AttemptRecorder();
+        }
+
+        public void commitAttempt(HedgeableTask attempt) {
+            committed.add(attempt);
+        }
+
+        public void discardAttempt(HedgeableTask attempt) {
+            discarded.add(attempt);
+        }
+
+    }
+
+    public void firstSuccessWinsAndOtherAttemptIsCancelled() {
+        AttemptRecorder task = new AttemptRecorder();
+        HedgedExecution execution = new HedgedExecution(task);
+        HedgeableTask primaryAttempt = task.createAttempt();
+        HedgeableTask hedgeAttempt = task.createAttempt();
+        CompletableFuture<Void> primary = new CompletableFuture<Void>();
+        CompletableFuture<Void> hedge = new CompletableFuture<Void>();
+        execution.setPrimary(primary);
+        assertTrue(execution.isHedgeNeeded());
+        execution.setHedge(hedge);
+        assertFalse(execution.isHedgeNeeded());
+
+        hedge.complete(null);
+        execution.attemptCompleted(hedgeAttempt, null);
+        assertTrue(execution.getResult().isDone());
+        assertFalse(execution.getResult().isCompletedExceptionally());
+        assertTrue(primary.isCancelled());
+        assertEquals(task.committed.size(), 1);
+        assertTrue(task.committed.get(0) == hedgeAttempt);
+
+        execution.attemptCompleted(primaryAttempt, new OfficeException("cancelled"));
+        assertEquals(task.discarded.size(), 1);
+        assertTrue(task.discarded.get(0) == primaryAttempt);
+    }
+
+    public void failsOnlyWhenAllAttemptsFailed() {
+        AttemptRecorder task = new AttemptRecorder();
+        HedgedExecution execution = new HedgedExecution(task);
+        execution.setPrimary(new CompletableFuture<Void>());
+        execution.setHedge(new CompletableFuture<Void>());
+        execution.attemptCompleted(task.createAttempt(), new OfficeException("first"));
+        assertFalse(execution.getResult().isDone());
+        execution.attemptCompleted(task.createAttempt(), new OfficeException("second"));
+        assertTrue(execution.getResult().isCompletedExceptionally());
+        assertEquals(task.discarded.size(), 2);
+    }
+
+}
@@ -0,0 +1,44 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+@Test
+public class LatencyTrackerTest {
+
+    public void noPercentileUntilEnoughSamples() {
+        LatencyTracker latencyTracker = new LatencyTracker();
+        for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+            latencyTracker.record("TEXT", i);
+        }
+        assertEquals(latencyTracker.getPercentile("TEXT", 0.9), -1L);
+        latencyTracker.record("TEXT", LatencyTracker.MIN_SAMPLES);
+        assertEquals(latencyTracker.getPercentile("TEXT", 0.9), 18L);
+        assertEquals(latencyTracker.getPercentile("SPREADSHEET", 0.9), -1L);
+    }
+
+    public void onlyRecentSamplesCount() {
+        LatencyTracker latencyTracker = new LatencyTracker();
+        for (int i = 0; i < LatencyTracker.WINDOW_SIZE; i++) {
+            latencyTracker.record(null, 1000L);
+        }
+        for (int i = 0; i < LatencyTracker.WINDOW_SIZE; i++) {
+            latencyTracker.record(null, 10L);
+        }
+        assertEquals(latencyTracker.getPercentile(null, 0.99), 10L);
+    }
+
+}
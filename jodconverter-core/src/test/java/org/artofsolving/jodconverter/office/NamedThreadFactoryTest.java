@@ -0,0 +1,40 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test
+public class NamedThreadFactoryTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        public void run() {
+        }
+    };
+
+    public void platformThreads() {
+        Thread thread = new NamedThreadFactory("PlatformTest", false).newThread(NOOP);
+        assertTrue(thread.getName().startsWith("PlatformTest-"));
+        assertTrue(!thread.isDaemon());
+    }
+
+    public void virtualThreadsOrFallback() {
+        Thread thread = new NamedThreadFactory("VirtualTest", true, true).newThread(NOOP);
+        assertTrue(thread.getName().startsWith("VirtualTest-"));
+        // virtual threads are always daemon threads, and so is the fallback
+        assertTrue(thread.isDaemon());
+    }
+
+}
@@ -0,0 +1,491 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.artofsolving.jodconverter.ReflectionUtils;
+import org.testng.annotations.Test;
+
+@Test
+public class ProcessPoolOfficeManagerTest {
+
+    /**
+     * A pool of {@link FakePooledOfficeManager}s.
+     */
+    private static class FakePool extends ProcessPoolOfficeManager {
+
+        private final List<FakePooledOfficeManager> managers = new CopyOnWriteArrayList<FakePooledOfficeManager>();
+
+        public FakePool(ProcessPoolOfficeManagerSettings settings) {
+            super(settings);
+        }
+
+        @Override
+        PooledOfficeManager newManager(PooledOfficeManagerSettings managerSettings) {
+            FakePooledOfficeManager manager = new FakePooledOfficeManager(managerSettings);
+            managers.add(manager);
+            return manager;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<PooledOfficeManager> getActiveManagers() throws Exception {
+            return (List<PooledOfficeManager>) ReflectionUtils.getPrivateField(ProcessPoolOfficeManager.class, this,
+                    "activeManagers");
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<PooledOfficeManager> getQuarantinedManagers() throws Exception {
+            return (List<PooledOfficeManager>) ReflectionUtils.getPrivateField(ProcessPoolOfficeManager.class, this,
+                    "quarantinedManagers");
+        }
+
+        /**
+         * Runs a task and aborts it on whichever instance it is given to.
+         */
+        public FakePooledOfficeManager abortTask() throws Exception {
+            CompletableFuture<Void> result = executeAsync(new MockOfficeTask());
+            final FakePooledOfficeManager[] busyManager = new FakePooledOfficeManager[1];
+            waitUntil("the task is started", new Callable<Boolean>() {
+                public Boolean call() {
+                    for (FakePooledOfficeManager manager : managers) {
+                        if (manager.isBusy()) {
+                            busyManager[0] = manager;
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            });
+            busyManager[0].completeTask(new TaskAbortedException("office process connection lost"));
+            try {
+                result.get(5L, TimeUnit.SECONDS);
+            } catch (ExecutionException executionException) {
+                // expected
+            }
+            return busyManager[0];
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<PooledOfficeManager> getStandbyManagers() throws Exception {
+            return (List<PooledOfficeManager>) ReflectionUtils.getPrivateField(ProcessPoolOfficeManager.class, this,
+                    "standbyManagers");
+        }
+
+    }
+
+    public void scalesUpWhenQueueIsDeep() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(3);
+        settings.setMinInstances(1);
+        settings.setScaleUpQueueDepth(2);
+        settings.setScaleUpQueueWait(60000L);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            assertEquals(pool.managers.size(), 1);
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            Thread.sleep(500L);
+            assertEquals(pool.managers.size(), 1);
+
+            CompletableFuture<Void> third = pool.executeAsync(new MockOfficeTask());
+            waitUntil("a second instance runs a queued task", new Callable<Boolean>() {
+                public Boolean call() {
+                    return pool.managers.size() == 2 && pool.managers.get(1).isBusy();
+                }
+            });
+            assertEquals(pool.getQueuedTaskCount(), 1);
+            assertFalse(third.isDone());
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void scalesUpWhenTaskWaitsTooLong() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(3);
+        settings.setMinInstances(1);
+        settings.setScaleUpQueueDepth(10);
+        settings.setScaleUpQueueWait(100L);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            waitUntil("a second instance runs the waiting task", new Callable<Boolean>() {
+                public Boolean call() {
+                    return pool.managers.size() == 2 && pool.managers.get(1).isBusy();
+                }
+            });
+            assertEquals(pool.getQueuedTaskCount(), 0);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void retiresIdleInstancesDownToMinInstances() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(3);
+        settings.setMinInstances(1);
+        settings.setScaleUpQueueDepth(1);
+        settings.setInstanceIdleTimeout(200L);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            waitUntil("three instances are busy", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.managers.size() == 3 && pool.managers.get(1).isBusy() && pool.managers.get(2).isBusy();
+                }
+            });
+            for (FakePooledOfficeManager manager : pool.managers) {
+                manager.completeTask(null);
+            }
+            waitUntil("two idle instances are retired", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    int stopped = 0;
+                    for (FakePooledOfficeManager manager : pool.managers) {
+                        if (manager.isStopped()) {
+                            stopped++;
+                        }
+                    }
+                    return stopped == 2;
+                }
+            });
+            assertEquals(pool.getActiveManagers().size(), 1);
+            // and not below minInstances
+            Thread.sleep(500L);
+            assertEquals(pool.getActiveManagers().size(), 1);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void swapsRestartDueInstanceForStandby() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(2);
+        settings.setMinInstances(1);
+        settings.setStandbyInstances(1);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            waitUntil("the standby instance is started", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.getStandbyManagers().size() == 1;
+                }
+            });
+            FakePooledOfficeManager restartDue = pool.managers.get(0);
+            final FakePooledOfficeManager standby = pool.managers.get(1);
+            assertTrue(pool.getStandbyManagers().contains(standby));
+            pool.executeAsync(new MockOfficeTask());
+            restartDue.setRestartDue(true);
+            restartDue.completeTask(null);
+            waitUntil("a new standby instance is started", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.managers.size() == 3 && pool.getStandbyManagers().contains(pool.managers.get(2));
+                }
+            });
+            assertTrue(restartDue.isStopped());
+            assertEquals(pool.getActiveManagers(), Collections.singletonList(standby));
+
+            pool.executeAsync(new MockOfficeTask());
+            assertTrue(standby.isBusy());
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void promotesStandbyWhenQueueIsDeep() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(3);
+        settings.setMinInstances(1);
+        settings.setStandbyInstances(1);
+        settings.setScaleUpQueueDepth(1);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            waitUntil("the standby instance is started", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.getStandbyManagers().size() == 1;
+                }
+            });
+            final FakePooledOfficeManager standby = pool.managers.get(1);
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            waitUntil("the standby instance runs the queued task and is replaced", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return standby.isBusy() && pool.managers.size() == 3
+                            && pool.getStandbyManagers().contains(pool.managers.get(2));
+                }
+            });
+            assertEquals(pool.getActiveManagers().size(), 2);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void neverQuarantinesLastActiveInstance() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(1);
+        settings.setCircuitBreakerFailureRate(0.5);
+        FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            for (int i = 0; i < CircuitBreaker.MIN_SAMPLES * 2; i++) {
+                pool.abortTask();
+            }
+            Thread.sleep(100L);
+            assertEquals(pool.getActiveManagers().size(), 1);
+            assertTrue(pool.getQuarantinedManagers().isEmpty());
+            assertEquals(pool.managers.get(0).getRecycleCount(), 0);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void quarantinesAtMostHalfOfPool() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(3);
+        settings.setCircuitBreakerFailureRate(0.5);
+        FakePool pool = new FakePool(settings);
+        CountDownLatch recycleGate = new CountDownLatch(1);
+        pool.start();
+        try {
+            for (FakePooledOfficeManager manager : pool.managers) {
+                manager.setRecycleGate(recycleGate);
+            }
+            for (int i = 0; i < CircuitBreaker.MIN_SAMPLES * 3; i++) {
+                pool.abortTask();
+            }
+            Thread.sleep(100L);
+            assertEquals(pool.getQuarantinedManagers().size(), 1);
+            assertEquals(pool.getActiveManagers().size(), 2);
+        } finally {
+            recycleGate.countDown();
+            pool.stop();
+        }
+    }
+
+    public void quarantineIsTakenOverByStandby() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(2);
+        settings.setMinInstances(1);
+        settings.setStandbyInstances(1);
+        settings.setCircuitBreakerFailureRate(0.5);
+        final FakePool pool = new FakePool(settings);
+        CountDownLatch recycleGate = new CountDownLatch(1);
+        pool.start();
+        try {
+            waitUntil("the standby instance is started", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.getStandbyManagers().size() == 1;
+                }
+            });
+            final FakePooledOfficeManager failing = pool.managers.get(0);
+            final FakePooledOfficeManager standby = pool.managers.get(1);
+            failing.setRecycleGate(recycleGate);
+            for (int i = 0; i < CircuitBreaker.MIN_SAMPLES; i++) {
+                assertTrue(pool.abortTask() == failing);
+            }
+            waitUntil("the standby instance takes over", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.getQuarantinedManagers().contains(failing)
+                            && pool.getActiveManagers().equals(Collections.singletonList(standby));
+                }
+            });
+
+            // back as the new standby once it passes its probe
+            recycleGate.countDown();
+            waitUntil("the recycled instance is on standby", new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    return pool.getStandbyManagers().contains(failing);
+                }
+            });
+            assertEquals(failing.getRecycleCount(), 1);
+            assertTrue(pool.getQuarantinedManagers().isEmpty());
+        } finally {
+            recycleGate.countDown();
+            pool.stop();
+        }
+    }
+
+    public void failFastRejectsTasksBeyondMaxQueuedTasks() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(1);
+        settings.setMaxQueuedTasks(1);
+        settings.setRejectionPolicy(RejectionPolicy.FAIL_FAST);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            CompletableFuture<Void> running = pool.executeAsync(new MockOfficeTask());
+            CompletableFuture<Void> queued = pool.executeAsync(new MockOfficeTask());
+            CompletableFuture<Void> rejected = pool.executeAsync(new MockOfficeTask());
+            assertRejected(rejected);
+            assertFalse(running.isDone());
+            assertFalse(queued.isDone());
+            assertEquals(pool.getQueuedTaskCount(), 1);
+            assertEquals(pool.getRejectedTaskCount(), 1L);
+
+            // room again once the queued task is started
+            pool.managers.get(0).completeTask(null);
+            running.get(5L, TimeUnit.SECONDS);
+            waitUntil("the queued task is started", new Callable<Boolean>() {
+                public Boolean call() {
+                    return pool.getQueuedTaskCount() == 0;
+                }
+            });
+            assertFalse(pool.executeAsync(new MockOfficeTask()).isDone());
+            assertEquals(pool.getRejectedTaskCount(), 1L);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void dropOldestAdmitsNewTaskInPlaceOfOldest() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(1);
+        settings.setMaxQueuedTasks(1);
+        settings.setRejectionPolicy(RejectionPolicy.DROP_OLDEST);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            pool.executeAsync(new MockOfficeTask());
+            CompletableFuture<Void> oldest = pool.executeAsync(new MockOfficeTask());
+            MockOfficeTask newestTask = new MockOfficeTask();
+            CompletableFuture<Void> newest = pool.executeAsync(newestTask);
+            assertRejected(oldest);
+            assertFalse(newest.isDone());
+            assertEquals(pool.getQueuedTaskCount(), 1);
+            assertEquals(pool.getRejectedTaskCount(), 1L);
+
+            pool.managers.get(0).completeTask(null);
+            waitUntil("the newest task is started", new Callable<Boolean>() {
+                public Boolean call() {
+                    return pool.managers.get(0).getTasks().size() == 2;
+                }
+            });
+            assertTrue(pool.managers.get(0).getTasks().get(1) == newestTask);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void callerBlocksUntilAdmissionTimeout() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(1);
+        settings.setMaxQueuedTasks(1);
+        settings.setRejectionPolicy(RejectionPolicy.CALLER_BLOCKS);
+        settings.setAdmissionTimeout(300L);
+        FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            long startTime = System.currentTimeMillis();
+            CompletableFuture<Void> rejected = pool.executeAsync(new MockOfficeTask());
+            assertTrue(System.currentTimeMillis() - startTime >= 250L);
+            assertRejected(rejected);
+            assertEquals(pool.getRejectedTaskCount(), 1L);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    public void callerBlocksUntilQueueHasRoom() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(1);
+        settings.setMaxQueuedTasks(1);
+        settings.setRejectionPolicy(RejectionPolicy.CALLER_BLOCKS);
+        settings.setAdmissionTimeout(5000L);
+        final FakePool pool = new FakePool(settings);
+        pool.start();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            executor.schedule(new Runnable() {
+                public void run() {
+                    pool.managers.get(0).completeTask(null);
+                }
+            }, 200L, TimeUnit.MILLISECONDS);
+            long startTime = System.currentTimeMillis();
+            CompletableFuture<Void> admitted = pool.executeAsync(new MockOfficeTask());
+            assertTrue(System.currentTimeMillis() - startTime >= 150L);
+            assertFalse(admitted.isDone());
+            assertEquals(pool.getQueuedTaskCount(), 1);
+            assertEquals(pool.getRejectedTaskCount(), 0L);
+        } finally {
+            executor.shutdown();
+            pool.stop();
+        }
+    }
+
+    public void estimatedQueueWaitCountsQueuedTasks() throws Exception {
+        ProcessPoolOfficeManagerSettings settings = createSettings(2);
+        FakePool pool = new FakePool(settings);
+        pool.start();
+        try {
+            assertEquals(pool.getEstimatedQueueWait(), 0L);
+            ReflectionUtils.setPrivateField(ProcessPoolOfficeManager.class, pool, "averageExecutionNanos",
+                    Double.valueOf(TimeUnit.MILLISECONDS.toNanos(100L)));
+            pool.executeAsync(new MockOfficeTask());
+            assertEquals(pool.getEstimatedQueueWait(), 0L);
+            pool.executeAsync(new MockOfficeTask());
+            // both instances busy: the next task waits for one of them
+            assertEquals(pool.getEstimatedQueueWait(), 50L);
+            pool.executeAsync(new MockOfficeTask());
+            pool.executeAsync(new MockOfficeTask());
+            // two queued tasks ahead of it, one per instance
+            assertEquals(pool.getEstimatedQueueWait(), 150L);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    private static void assertRejected(CompletableFuture<Void> result) throws Exception {
+        try {
+            result.get(5L, TimeUnit.SECONDS);
+            fail("task should have been rejected");
+        } catch (ExecutionException executionException) {
+            assertTrue(executionException.getCause() instanceof TaskRejectedException, String
+                    .valueOf(executionException.getCause()));
+        }
+    }
+
+    static ProcessPoolOfficeManagerSettings createSettings(int instances) {
+        UnoUrl[] unoUrls = new UnoUrl[instances];
+        for (int i = 0; i < instances; i++) {
+            unoUrls[i] = UnoUrl.socket(2100 + i);
+        }
+        ProcessPoolOfficeManagerSettings settings = new ProcessPoolOfficeManagerSettings(unoUrls);
+        settings.setOfficeHome(new File(System.getProperty("java.io.tmpdir")));
+        return settings;
+    }
+
+    static void waitUntil(String description, Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.call().booleanValue()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("timed out waiting until " + description);
+            }
+            Thread.sleep(10L);
+        }
+    }
+
+}
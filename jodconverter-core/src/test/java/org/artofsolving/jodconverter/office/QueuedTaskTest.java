@@ -0,0 +1,52 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+@Test
+public class QueuedTaskTest {
+
+    private static final TenantState TENANT = new TenantState(OfficeTask.DEFAULT_TENANT, 1, 0);
+
+    public void batchTaskAgesIntoHigherLanes() {
+        QueuedTask queuedTask = new QueuedTask(new BatchTask(), TENANT, new CompletableFuture<Void>());
+        long enqueueTime = queuedTask.getEnqueueTime();
+        assertEquals(queuedTask.getEffectivePriority(enqueueTime, 1000L), TaskPriority.BATCH.ordinal());
+        assertEquals(queuedTask.getEffectivePriority(enqueueTime + 1500L * 1000000L, 1000L), TaskPriority.NORMAL.ordinal());
+        assertEquals(queuedTask.getEffectivePriority(enqueueTime + 2500L * 1000000L, 1000L), TaskPriority.INTERACTIVE.ordinal());
+    }
+
+    public void noAgingWhenDisabled() {
+        QueuedTask queuedTask = new QueuedTask(new BatchTask(), TENANT, new CompletableFuture<Void>());
+        long muchLater = queuedTask.getEnqueueTime() + 3600L * 1000L * 1000000L;
+        assertEquals(queuedTask.getEffectivePriority(muchLater, 0L), TaskPriority.BATCH.ordinal());
+    }
+
+    public void defaultPriorityIsNormal() {
+        QueuedTask queuedTask = new QueuedTask(new MockOfficeTask(), TENANT, new CompletableFuture<Void>());
+        assertEquals(queuedTask.getPriority(), TaskPriority.NORMAL);
+    }
+
+    private static class BatchTask extends MockOfficeTask {
+        @Override
+        public TaskPriority getPriority() {
+            return TaskPriority.BATCH;
+        }
+    }
+
+}
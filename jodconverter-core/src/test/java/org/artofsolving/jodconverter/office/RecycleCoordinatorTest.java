@@ -0,0 +1,51 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test
+public class RecycleCoordinatorTest {
+
+    public void taskLimitsAreJitteredBelowMaxTasksPerProcess() {
+        RecycleCoordinator recycleCoordinator = new RecycleCoordinator(0.2, 0);
+        boolean jittered = false;
+        for (int i = 0; i < 100; i++) {
+            int taskLimit = recycleCoordinator.nextTaskLimit(200);
+            assertTrue(taskLimit >= 160 && taskLimit <= 200, "taskLimit " + taskLimit);
+            jittered |= taskLimit != 200;
+        }
+        assertTrue(jittered);
+    }
+
+    public void noJitterOrNoLimitLeavesMaxTasksPerProcessUnchanged() {
+        assertEquals(new RecycleCoordinator(0.0, 0).nextTaskLimit(200), 200);
+        assertEquals(new RecycleCoordinator(0.5, 0).nextTaskLimit(0), 0);
+        assertEquals(new RecycleCoordinator(0.9, 0).nextTaskLimit(1), 1);
+    }
+
+    public void concurrentRestartsAreCapped() {
+        RecycleCoordinator recycleCoordinator = new RecycleCoordinator(0.0, 2);
+        assertTrue(recycleCoordinator.tryBeginRestart());
+        assertTrue(recycleCoordinator.tryBeginRestart());
+        assertFalse(recycleCoordinator.tryBeginRestart());
+        recycleCoordinator.endRestart();
+        assertTrue(recycleCoordinator.tryBeginRestart());
+        assertEquals(recycleCoordinator.getRestartingCount(), 2);
+    }
+
+}
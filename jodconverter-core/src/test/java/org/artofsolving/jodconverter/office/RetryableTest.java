@@ -0,0 +1,41 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.testng.annotations.Test;
+
+@Test
+public class RetryableTest {
+
+    public void interruptStopsRetrying() throws Exception {
+        Retryable retryable = new Retryable() {
+            protected void attempt() throws TemporaryException, Exception {
+                throw new TemporaryException(new Exception("not yet"));
+            }
+        };
+        Thread.currentThread().interrupt();
+        long start = System.currentTimeMillis();
+        try {
+            retryable.execute(100L, 30000L);
+            fail("retried despite interrupt");
+        } catch (InterruptedException interruptedException) {
+            assertTrue(System.currentTimeMillis() - start < 30000L);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.artofsolving.jodconverter.ReflectionUtils;
+import org.testng.annotations.Test;
+
+@Test
+public class TaskTimeoutTest {
+
+    private static class HangingTask implements OfficeTask {
+
+        private final long deadline;
+        private final CountDownLatch finish = new CountDownLatch(1);
+
+        public HangingTask(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public void execute(OfficeContext context) throws OfficeException {
+            try {
+                finish.await();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public String getLatencyClass() {
+            return "hanging";
+        }
+
+    }
+
+    public void timeoutShortenedByDeadlineExpiresTask() throws Exception {
+        Throwable failure = runHangingTask(60000L, System.currentTimeMillis() + 200L);
+        assertTrue(failure instanceof TaskExpiredException, String.valueOf(failure));
+    }
+
+    public void configuredTimeoutAbortsTask() throws Exception {
+        Throwable failure = runHangingTask(200L, OfficeTask.NO_DEADLINE);
+        assertTrue(failure instanceof TaskAbortedException, String.valueOf(failure));
+        assertFalse(failure instanceof TaskExpiredException);
+    }
+
+    public void adaptiveTimeoutAbortsTask() throws Exception {
+        TimeoutEstimator timeoutEstimator = new TimeoutEstimator(new LatencyTracker(), 1.0, 1.0, 10L, 60000L);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            timeoutEstimator.record("hanging", TimeUnit.MILLISECONDS.toNanos(100L));
+        }
+        Throwable failure = runHangingTask(60000L, OfficeTask.NO_DEADLINE, timeoutEstimator);
+        assertTrue(failure instanceof TaskAbortedException, String.valueOf(failure));
+        assertFalse(failure instanceof TaskExpiredException);
+    }
+
+    public void timedOutTaskIsRecordedAsItsTimeout() throws Exception {
+        TimeoutEstimator timeoutEstimator = new TimeoutEstimator(new LatencyTracker(), 1.0, 1.0, 10L, 60000L);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES - 1; i++) {
+            timeoutEstimator.record("hanging", TimeUnit.MILLISECONDS.toNanos(100L));
+        }
+        runHangingTask(200L, OfficeTask.NO_DEADLINE, timeoutEstimator);
+        assertEquals(timeoutEstimator.getTimeout("hanging", 120000L), 200L);
+    }
+
+    private Throwable runHangingTask(long taskExecutionTimeout, long deadline) throws Exception {
+        return runHangingTask(taskExecutionTimeout, deadline, null);
+    }
+
+    private Throwable runHangingTask(long taskExecutionTimeout, long deadline, TimeoutEstimator timeoutEstimator)
+            throws Exception {
+        PooledOfficeManagerSettings settings = new PooledOfficeManagerSettings(UnoUrl.socket(2011));
+        settings.setOfficeHome(new File(System.getProperty("java.io.tmpdir")));
+        settings.setTaskExecutionTimeout(taskExecutionTimeout);
+        settings.setTimeoutEstimator(timeoutEstimator);
+        PooledOfficeManager manager = new PooledOfficeManager(settings);
+        ((OfficeConnectionEventListener) ReflectionUtils.getPrivateField(manager, "connectionEventListener"))
+                .connected(null);
+        HangingTask task = new HangingTask(deadline);
+        try {
+            manager.executeAsync(task).get(5L, TimeUnit.SECONDS);
+            fail("task should have timed out");
+            return null;
+        } catch (ExecutionException executionException) {
+            // the task is aborted right after it is failed
+            Thread.sleep(100L);
+            return executionException.getCause();
+        } finally {
+            task.finish.countDown();
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test
+public class TenantStateTest {
+
+    public void heavierTenantAdvancesMoreSlowly() {
+        TenantState light = new TenantState("light", 1, 0);
+        TenantState heavy = new TenantState("heavy", 4, 0);
+        for (int i = 0; i < 4; i++) {
+            heavy.dispatched(0L);
+        }
+        light.dispatched(0L);
+        assertEquals(heavy.getVirtualTime(), light.getVirtualTime(), 0.0001);
+    }
+
+    public void inactiveTenantCatchesUpWithPool() {
+        TenantState tenant = new TenantState("idle", 1, 0);
+        tenant.activate(42.0);
+        assertEquals(tenant.getVirtualTime(), 42.0, 0.0001);
+        tenant.queued();
+        tenant.activate(100.0);
+        assertEquals(tenant.getVirtualTime(), 42.0, 0.0001);
+    }
+
+    public void concurrencyLimit() {
+        TenantState tenant = new TenantState("capped", 1, 2);
+        tenant.dispatched(0L);
+        assertFalse(tenant.isAtConcurrencyLimit());
+        tenant.dispatched(0L);
+        assertTrue(tenant.isAtConcurrencyLimit());
+        tenant.completed();
+        assertFalse(tenant.isAtConcurrencyLimit());
+    }
+
+    public void inactiveSinceLastTask() throws InterruptedException {
+        TenantState tenant = new TenantState("evictable", 1, 0);
+        tenant.queued();
+        tenant.dequeued(false);
+        tenant.dispatched(0L);
+        assertTrue(tenant.isActive());
+        Thread.sleep(20L);
+        long beforeCompletion = System.currentTimeMillis();
+        tenant.completed();
+        assertFalse(tenant.isActive());
+        assertTrue(tenant.getInactiveSince() >= beforeCompletion);
+    }
+
+    public void queueWaitStatistics() {
+        TenantState tenant = new TenantState("measured", 1, 0);
+        tenant.queued();
+        tenant.dequeued(false);
+        tenant.dispatched(30000000L);
+        tenant.dispatched(10000000L);
+        tenant.queued();
+        tenant.dequeued(true);
+        TenantStatistics statistics = tenant.toStatistics();
+        assertEquals(statistics.getDispatchedTasks(), 2L);
+        assertEquals(statistics.getTimedOutTasks(), 1L);
+        assertEquals(statistics.getAverageQueueWait(), 20L);
+        assertEquals(statistics.getMaxQueueWait(), 30L);
+    }
+
+}
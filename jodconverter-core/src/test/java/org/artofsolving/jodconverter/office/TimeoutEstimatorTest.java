@@ -0,0 +1,53 @@
+//
+// JODConverter - Java OpenDocument Converter
+// Copyright 2004-2012 Mirko Nasato and contributors
+//
+// JODConverter is Open Source software, you can redistribute it and/or
+// modify it under either (at your option) of the following licenses
+//
+// 1. The GNU Lesser General Public License v3 (or later)
+//    -> http://www.gnu.org/licenses/lgpl-3.0.txt
+// 2. The Apache License, Version 2.0
+//    -> http://www.apache.org/licenses/LICENSE-2.0.txt
+//
+package org.artofsolving.jodconverter.office;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+@Test
+public class TimeoutEstimatorTest {
+
+    public void defaultTimeoutUntilEnoughSamples() {
+        TimeoutEstimator timeoutEstimator = new TimeoutEstimator(new LatencyTracker(), 0.9, 3.0, 1000L, 60000L);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES - 1; i++) {
+            timeoutEstimator.record("doc>pdf:4^8", TimeUnit.SECONDS.toNanos(2));
+        }
+        assertEquals(timeoutEstimator.getTimeout("doc>pdf:4^8", 120000L), 120000L);
+        assertEquals(timeoutEstimator.getTimeout(null, 120000L), 120000L);
+    }
+
+    public void learnedTimeoutIsPercentileTimesFactor() {
+        LatencyTracker latencyTracker = new LatencyTracker();
+        TimeoutEstimator timeoutEstimator = new TimeoutEstimator(latencyTracker, 0.9, 3.0, 1000L, 60000L);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            latencyTracker.record("doc>pdf:4^8", TimeUnit.SECONDS.toNanos(2));
+        }
+        assertEquals(timeoutEstimator.getTimeout("doc>pdf:4^8", 120000L), 6000L);
+        assertEquals(timeoutEstimator.getTimeout("xls>pdf:4^10", 120000L), 120000L);
+    }
+
+    public void learnedTimeoutIsClamped() {
+        TimeoutEstimator timeoutEstimator = new TimeoutEstimator(new LatencyTracker(), 0.9, 3.0, 10000L, 60000L);
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            timeoutEstimator.record("fast", TimeUnit.MILLISECONDS.toNanos(100));
+            timeoutEstimator.record("slow", TimeUnit.SECONDS.toNanos(100));
+        }
+        assertEquals(timeoutEstimator.getTimeout("fast", 120000L), 10000L);
+        assertEquals(timeoutEstimator.getTimeout("slow", 120000L), 60000L);
+    }
+
+}
@@ -14,6 +14,10 @@ package org.artofsolving.jodconverter.process;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
 
 import org.artofsolving.jodconverter.ReflectionUtils;
 import org.artofsolving.jodconverter.util.PlatformUtils;
@@ -57,4 +61,23 @@ public class ProcessManagerTest {
         assertEquals(processManager.findPid(query), ProcessManager.PID_NOT_FOUND);
     }
 
+    public void linuxProcessUsage() throws Exception {
+        if (!PlatformUtils.isLinux()) {
+            throw new SkipException("LinuxProcessManager can only be tested on Linux");
+        }
+
+        long pid = Long.parseLong(new File("/proc/self").getCanonicalFile().getName());
+        ProcessUsage usage = new LinuxProcessManager().getUsage(pid);
+        assertNotNull(usage);
+        assertTrue(usage.getResidentMemory() > 0L);
+        assertTrue(usage.getCpuTime() > 0L);
+    }
+
+    public void parseLinuxProcessUsage() throws Exception {
+        String status = "Name:\tsoffice.bin\nVmPeak:\t 1234560 kB\nVmRSS:\t  524288 kB\nThreads:\t12\n";
+        assertEquals(LinuxProcessManager.parseResidentMemory(status), 512L * 1024L * 1024L);
+        String stat = "4242 (soffice (x) bin) S 1 4242 4242 0 -1 4194560 96781 0 0 0 1250 350 0 0 20 0 12 0 1";
+        assertEquals(LinuxProcessManager.parseCpuTime(stat), 16000L);
+    }
+
 }